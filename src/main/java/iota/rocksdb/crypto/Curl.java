@@ -17,7 +17,7 @@ public class Curl implements Sponge {
     static final int NUMBER_OF_ROUNDSP81 = 81;
     static final int NUMBER_OF_ROUNDSP27 = 27;
     private final int numberOfRounds;
-    private static final int STATE_LENGTH = 3 * HASH_LENGTH;
+    static final int STATE_LENGTH = 3 * HASH_LENGTH;
 
     private static final byte[] TRUTH_TABLE = {1, 0, -1, 2, 1, -1, 0, 2, -1, 1, 0};
 
@@ -41,10 +41,17 @@ public class Curl implements Sponge {
         state = new byte[STATE_LENGTH];
         stateHigh = null;
         stateLow = null;
+        scratchpadLow = null;
+        scratchpadHigh = null;
     }
 
     @Override
     public void absorb(final byte[] trits, int offset, int length) {
+        if (state == null) {
+            // Every bit index of a pair Curl hashes the same input
+            absorb(Converter.longPair(Arrays.copyOfRange(trits, offset, offset + length)), 0, length);
+            return;
+        }
 
         do {
             System.arraycopy(trits, offset, state, 0, length < HASH_LENGTH ? length : HASH_LENGTH);
@@ -55,6 +62,11 @@ public class Curl implements Sponge {
 
     @Override
     public void squeeze(final byte[] trits, int offset, int length) {
+        if (state == null) {
+            Pair<long[], long[]> pair = squeeze(new Pair<>(new long[length], new long[length]), 0, length);
+            System.arraycopy(Converter.trits(pair, 0), 0, trits, offset, length);
+            return;
+        }
 
         do {
             System.arraycopy(state, 0, trits, offset, length < HASH_LENGTH ? length : HASH_LENGTH);
@@ -84,35 +96,60 @@ public class Curl implements Sponge {
         }
     }
     public void reset() {
-        Arrays.fill(state, (byte) 0);
+        if (state == null) {
+            set();
+        } else {
+            Arrays.fill(state, (byte) 0);
+        }
     }
 
 
     // BCURLT - pair Curl implementation.
-    ///////////////////////////////////////Code not in use////////////////////////////////////////////////////
+    // Every trit is stored as a bit pair (low, high) spread over two longs, so one transform
+    // hashes 64 independent inputs at once, one per bit index.
+
+    /**
+     * The amount of independent inputs a pair Curl hashes per transform
+     */
+    public static final int BATCH_SIZE = Long.SIZE;
+
+    private final long[] scratchpadLow;
+    private final long[] scratchpadHigh;
 
     protected Curl(boolean pair, SpongeFactory.Mode mode) {
         switch(mode) {
             case CURLP27: {
                 numberOfRounds = NUMBER_OF_ROUNDSP27;
             } break;
-            case CURLP81: {
+            case CURLP81:
+            case BCURLT: {
                 numberOfRounds = NUMBER_OF_ROUNDSP81;
             } break;
-            default: throw new NoSuchElementException("Only Curl-P-27 and Curl-P-81 are supported.");
+            default: throw new NoSuchElementException("Only Curl-P-27, Curl-P-81 and BCURLT are supported.");
         }
         if(pair) {
             stateHigh = new long[STATE_LENGTH];
             stateLow = new long[STATE_LENGTH];
+            scratchpadLow = new long[STATE_LENGTH];
+            scratchpadHigh = new long[STATE_LENGTH];
             state = null;
             set();
         } else {
             state = new byte[STATE_LENGTH];
             stateHigh = null;
             stateLow = null;
+            scratchpadLow = null;
+            scratchpadHigh = null;
         }
     }
 
+    /**
+     * @return <code>true</code> if this Curl hashes bit-sliced trits pairs, otherwise <code>false</code>
+     */
+    public boolean isPair() {
+        return state == null;
+    }
+
     void reset(boolean pair) {
         if(pair) {
             set();
@@ -126,9 +163,46 @@ public class Curl implements Sponge {
         Arrays.fill(stateHigh, Converter.HIGH_LONG_BITS);
     }
 
+    /**
+     * Copies the pair state into the provided arrays
+     *
+     * @param low destination of the low bits, {@value #STATE_LENGTH} long
+     * @param high destination of the high bits, {@value #STATE_LENGTH} long
+     */
+    void getPairState(long[] low, long[] high) {
+        System.arraycopy(stateLow, 0, low, 0, STATE_LENGTH);
+        System.arraycopy(stateHigh, 0, high, 0, STATE_LENGTH);
+    }
+
+    /**
+     * Replaces the pair state with the provided arrays and transforms it
+     *
+     * @param low the low bits, {@value #STATE_LENGTH} long
+     * @param high the high bits, {@value #STATE_LENGTH} long
+     */
+    void transform(long[] low, long[] high) {
+        System.arraycopy(low, 0, stateLow, 0, STATE_LENGTH);
+        System.arraycopy(high, 0, stateHigh, 0, STATE_LENGTH);
+        pairTransform();
+    }
+
+    /**
+     * @return The low bits of the pair state. Not a copy, should only be read
+     */
+    long[] stateLow() {
+        return stateLow;
+    }
+
+    /**
+     * @return The high bits of the pair state. Not a copy, should only be read
+     */
+    long[] stateHigh() {
+        return stateHigh;
+    }
+
     private void pairTransform() {
-        final long[] curlScratchpadLow = new long[STATE_LENGTH];
-        final long[] curlScratchpadHigh = new long[STATE_LENGTH];
+        final long[] curlScratchpadLow = scratchpadLow;
+        final long[] curlScratchpadHigh = scratchpadHigh;
         int curlScratchpadIndex = 0;
         for (int round = numberOfRounds; round-- > 0; ) {
             System.arraycopy(stateLow, 0, curlScratchpadLow, 0, STATE_LENGTH);
@@ -136,15 +210,23 @@ public class Curl implements Sponge {
             for (int curlStateIndex = 0; curlStateIndex < STATE_LENGTH; curlStateIndex++) {
                 final long alpha = curlScratchpadLow[curlScratchpadIndex];
                 final long beta = curlScratchpadHigh[curlScratchpadIndex];
-                final long delta = alpha & (curlScratchpadLow[curlScratchpadIndex += (curlScratchpadIndex < 365 ? 364 : -365)] ^ beta);
+                final long gamma = curlScratchpadHigh[curlScratchpadIndex += (curlScratchpadIndex < 365 ? 364 : -365)];
+                final long delta = (alpha | (~gamma)) & (curlScratchpadLow[curlScratchpadIndex] ^ beta);
                 stateLow[curlStateIndex] = ~delta;
-                stateHigh[curlStateIndex] = (alpha ^ curlScratchpadHigh[curlScratchpadIndex]) | delta;
+                stateHigh[curlStateIndex] = (alpha ^ gamma) | delta;
             }
         }
     }
 
-    void absorb(final Pair<long[], long[]> pair, int offset, int length) {
-        int o = offset, l = length, i = 0;
+    /**
+     * Absorbs the bit-sliced trits of up to {@value #BATCH_SIZE} inputs, in chunks of {@value #HASH_LENGTH}.
+     *
+     * @param pair low and high bits of the trits to absorb
+     * @param offset starting position in the pair arrays
+     * @param length amount of trits to absorb, multiple of {@value #HASH_LENGTH}
+     */
+    public void absorb(final Pair<long[], long[]> pair, int offset, int length) {
+        int o = offset, l = length;
         do {
             System.arraycopy(pair.low, o, stateLow, 0, l < HASH_LENGTH ? l : HASH_LENGTH);
             System.arraycopy(pair.hi, o, stateHigh, 0, l < HASH_LENGTH ? l : HASH_LENGTH);
@@ -153,8 +235,16 @@ public class Curl implements Sponge {
         } while ((l -= HASH_LENGTH) > 0);
     }
 
-    Pair<long[], long[]> squeeze(Pair<long[], long[]> pair, int offset, int length) {
-        int o = offset, l = length, i = 0;
+    /**
+     * Squeezes {@code length} bit-sliced trits from the sponge into {@code pair}, in chunks of {@value #HASH_LENGTH}.
+     *
+     * @param pair low and high arrays to write the squeezed trits to
+     * @param offset starting position to write to in the pair arrays
+     * @param length amount of trits to squeeze, multiple of {@value #HASH_LENGTH}
+     * @return the pair that was written to
+     */
+    public Pair<long[], long[]> squeeze(Pair<long[], long[]> pair, int offset, int length) {
+        int o = offset, l = length;
         long[] low = pair.low;
         long[] hi = pair.hi;
         do {
@@ -163,7 +253,7 @@ public class Curl implements Sponge {
             pairTransform();
             o += HASH_LENGTH;
         } while ((l -= HASH_LENGTH) > 0);
-        return new Pair<>(low, hi);
+        return pair;
     }
 
 }
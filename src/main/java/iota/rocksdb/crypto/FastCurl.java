@@ -0,0 +1,103 @@
+package iota.rocksdb.crypto;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * Curl-P implementation tuned for single input throughput.
+ *
+ * <p>
+ *     Produces the same output as {@link Curl}, but avoids the work the reference transform repeats every round:
+ *     <ul>
+ *         <li>The state is double-buffered, every round reads one buffer and writes the other instead of copying
+ *         the state into a scratchpad.</li>
+ *         <li>The index walk ({@code +364 / -365}) is a fixed permutation, so it is computed once.</li>
+ *         <li>Every scratchpad trit is loaded once per round, as it is shared by two neighbouring outputs.</li>
+ *     </ul>
+ * </p>
+ */
+public class FastCurl implements Sponge {
+
+    private static final int STATE_LENGTH = 3 * HASH_LENGTH;
+
+    /**
+     * Output trit for <code>a + 4b + 5</code>, where a and b are the two input trits
+     */
+    private static final byte[] TRUTH_TABLE = {1, 0, -1, 2, 1, -1, 0, 2, -1, 1, 0};
+
+    /**
+     * The scratchpad index visited at every step of a round. Contains one extra entry so that
+     * <code>INDEXES[i + 1]</code> is valid for the last state index. The walk returns to 0 after every round.
+     */
+    private static final int[] INDEXES = new int[STATE_LENGTH + 1];
+
+    static {
+        for (int i = 0, index = 0; i <= STATE_LENGTH; i++) {
+            INDEXES[i] = index;
+            index += index < 365 ? 364 : -365;
+        }
+    }
+
+    private final int numberOfRounds;
+
+    private byte[] state = new byte[STATE_LENGTH];
+    private byte[] scratchpad = new byte[STATE_LENGTH];
+
+    protected FastCurl(SpongeFactory.Mode mode) {
+        switch(mode) {
+            case CURLP27: {
+                numberOfRounds = Curl.NUMBER_OF_ROUNDSP27;
+            } break;
+            case CURLP81: {
+                numberOfRounds = Curl.NUMBER_OF_ROUNDSP81;
+            } break;
+            default: throw new NoSuchElementException("Only Curl-P-27 and Curl-P-81 are supported.");
+        }
+    }
+
+    @Override
+    public void absorb(final byte[] trits, int offset, int length) {
+        do {
+            System.arraycopy(trits, offset, state, 0, length < HASH_LENGTH ? length : HASH_LENGTH);
+            transform();
+            offset += HASH_LENGTH;
+        } while ((length -= HASH_LENGTH) > 0);
+    }
+
+    @Override
+    public void squeeze(final byte[] trits, int offset, int length) {
+        do {
+            System.arraycopy(state, 0, trits, offset, length < HASH_LENGTH ? length : HASH_LENGTH);
+            transform();
+            offset += HASH_LENGTH;
+        } while ((length -= HASH_LENGTH) > 0);
+    }
+
+    /**
+     * Performs {@code numberOfRounds} Transformations on the internal state, swapping buffers after every round.
+     */
+    private void transform() {
+        final int[] indexes = INDEXES;
+        final byte[] table = TRUTH_TABLE;
+        byte[] from = state;
+        byte[] to = scratchpad;
+        for (int round = numberOfRounds; round-- > 0; ) {
+            int previous = from[0];
+            for (int stateIndex = 0; stateIndex < STATE_LENGTH; stateIndex++) {
+                final int next = from[indexes[stateIndex + 1]];
+                to[stateIndex] = table[previous + (next << 2) + 5];
+                previous = next;
+            }
+            final byte[] swap = from;
+            from = to;
+            to = swap;
+        }
+        state = from;
+        scratchpad = to;
+    }
+
+    @Override
+    public void reset() {
+        Arrays.fill(state, (byte) 0);
+    }
+}
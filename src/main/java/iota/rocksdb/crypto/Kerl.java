@@ -0,0 +1,217 @@
+package iota.rocksdb.crypto;
+
+import java.util.Arrays;
+
+import org.bouncycastle.crypto.digests.KeccakDigest;
+
+/**
+ * Kerl is a sponge function based on Keccak-384.
+ *
+ * <p>
+ *     Every chunk of {@value #HASH_LENGTH} trits is read as a balanced ternary number and absorbed as its
+ *     48 byte, big-endian, two's complement representation. The last trit of a chunk is always treated as 0,
+ *     so that the value fits in 384 bits.
+ * </p>
+ * <p>
+ *     The conversion between trits and bytes runs on a fixed array of unsigned 32 bit words instead of
+ *     <tt>BigInteger</tt>, so absorbing and squeezing does not allocate.
+ * </p>
+ */
+public class Kerl implements Sponge {
+
+    private static final int BIT_HASH_LENGTH = 384;
+    static final int BYTE_HASH_LENGTH = BIT_HASH_LENGTH / 8;
+
+    /**
+     * Amount of 32 bit words needed to hold any value of {@value #HASH_LENGTH} unbalanced trits, 3^243 &lt; 2^416
+     */
+    static final int INT_LENGTH = 13;
+    private static final int BYTE_INT_LENGTH = BYTE_HASH_LENGTH / Integer.BYTES;
+    private static final long INT_MASK = 0xFFFFFFFFL;
+
+    /**
+     * (3^243 - 1) / 2, the offset between balanced and unbalanced ternary, as little-endian words
+     */
+    private static final int[] HALF_3 = new int[INT_LENGTH];
+
+    static {
+        HALF_3[0] = 1;
+        for (int i = 0; i < HASH_LENGTH; i++) {
+            multiplyAdd(HALF_3, 3, 0);
+        }
+        // 3^243 is odd, so subtracting 1 and shifting is an exact division
+        HALF_3[0] -= 1;
+        for (int i = 0; i < INT_LENGTH; i++) {
+            int next = i + 1 < INT_LENGTH ? HALF_3[i + 1] : 0;
+            HALF_3[i] = (HALF_3[i] >>> 1) | (next << 31);
+        }
+    }
+
+    private final KeccakDigest keccak = new KeccakDigest(BIT_HASH_LENGTH);
+    private final byte[] byteState = new byte[BYTE_HASH_LENGTH];
+    private final byte[] tritState = new byte[HASH_LENGTH];
+    private final int[] words = new int[INT_LENGTH];
+
+    protected Kerl() {
+    }
+
+    @Override
+    public void absorb(final byte[] trits, int offset, int length) {
+        if (length % HASH_LENGTH != 0) {
+            throw new IllegalArgumentException("Illegal length: " + length);
+        }
+        do {
+            System.arraycopy(trits, offset, tritState, 0, HASH_LENGTH);
+            tritState[HASH_LENGTH - 1] = 0;
+            tritsToBytes(tritState, 0, byteState, words);
+            keccak.update(byteState, 0, BYTE_HASH_LENGTH);
+            offset += HASH_LENGTH;
+        } while ((length -= HASH_LENGTH) > 0);
+    }
+
+    @Override
+    public void squeeze(final byte[] trits, int offset, int length) {
+        do {
+            keccak.doFinal(byteState, 0);
+            bytesToTrits(byteState, tritState, 0, words);
+            tritState[HASH_LENGTH - 1] = 0;
+            System.arraycopy(tritState, 0, trits, offset, length < HASH_LENGTH ? length : HASH_LENGTH);
+
+            // the next squeeze absorbs the inverted bytes of this one
+            for (int i = 0; i < BYTE_HASH_LENGTH; i++) {
+                byteState[i] = (byte) ~byteState[i];
+            }
+            keccak.update(byteState, 0, BYTE_HASH_LENGTH);
+            offset += HASH_LENGTH;
+        } while ((length -= HASH_LENGTH) > 0);
+    }
+
+    @Override
+    public void reset() {
+        keccak.reset();
+    }
+
+    /**
+     * Converts {@value #HASH_LENGTH} balanced trits to their 48 byte two's complement representation.
+     * The last trit must be 0. This method will override the content of {@code bytes} and {@code words}.
+     *
+     * @param trits source trits array
+     * @param offset starting position in trits array
+     * @param bytes destination bytes array, at least {@value #BYTE_HASH_LENGTH} long
+     * @param words scratch array of {@value #INT_LENGTH} words
+     */
+    static void tritsToBytes(final byte[] trits, final int offset, final byte[] bytes, final int[] words) {
+        Arrays.fill(words, 0);
+        // Horner's method on the unbalanced digits (trit + 1), starting at the most significant trit
+        for (int i = HASH_LENGTH; i-- > 0; ) {
+            multiplyAdd(words, 3, trits[offset + i] + 1);
+        }
+
+        if (compare(words, HALF_3) >= 0) {
+            subtract(words, HALF_3, words);
+        } else {
+            subtract(HALF_3, words, words);
+            negate(words);
+        }
+
+        for (int i = 0; i < BYTE_INT_LENGTH; i++) {
+            int word = words[BYTE_INT_LENGTH - 1 - i];
+            bytes[i * 4] = (byte) (word >>> 24);
+            bytes[i * 4 + 1] = (byte) (word >>> 16);
+            bytes[i * 4 + 2] = (byte) (word >>> 8);
+            bytes[i * 4 + 3] = (byte) word;
+        }
+    }
+
+    /**
+     * Converts a 48 byte two's complement number to {@value #HASH_LENGTH} balanced trits.
+     * This method will override the content of {@code trits} and {@code words}.
+     *
+     * @param bytes source bytes array, big-endian
+     * @param trits destination trits array
+     * @param offset starting position in trits array
+     * @param words scratch array of {@value #INT_LENGTH} words
+     */
+    static void bytesToTrits(final byte[] bytes, final byte[] trits, final int offset, final int[] words) {
+        for (int i = 0; i < BYTE_INT_LENGTH; i++) {
+            words[BYTE_INT_LENGTH - 1 - i] = (bytes[i * 4] & 0xFF) << 24 | (bytes[i * 4 + 1] & 0xFF) << 16
+                    | (bytes[i * 4 + 2] & 0xFF) << 8 | (bytes[i * 4 + 3] & 0xFF);
+        }
+        // sign extension of the 384 bit value
+        words[INT_LENGTH - 1] = bytes[0] < 0 ? -1 : 0;
+
+        // adding half of 3^243 makes every value positive, the carry out of the top word is dropped
+        long carry = 0;
+        for (int i = 0; i < INT_LENGTH; i++) {
+            carry += (words[i] & INT_MASK) + (HALF_3[i] & INT_MASK);
+            words[i] = (int) carry;
+            carry >>>= 32;
+        }
+
+        for (int i = 0; i < HASH_LENGTH; i++) {
+            trits[offset + i] = (byte) (divideBy3(words) - 1);
+        }
+    }
+
+    /**
+     * words = words * factor + addend
+     */
+    private static void multiplyAdd(final int[] words, final int factor, final int addend) {
+        long carry = addend;
+        for (int i = 0; i < words.length; i++) {
+            carry += (words[i] & INT_MASK) * factor;
+            words[i] = (int) carry;
+            carry >>>= 32;
+        }
+    }
+
+    /**
+     * words = words / 3
+     * @return the remainder
+     */
+    private static int divideBy3(final int[] words) {
+        long remainder = 0;
+        for (int i = words.length; i-- > 0; ) {
+            long value = (remainder << 32) | (words[i] & INT_MASK);
+            words[i] = (int) (value / 3);
+            remainder = value % 3;
+        }
+        return (int) remainder;
+    }
+
+    /**
+     * Unsigned comparison of two numbers of equal word length
+     */
+    private static int compare(final int[] a, final int[] b) {
+        for (int i = a.length; i-- > 0; ) {
+            if (a[i] != b[i]) {
+                return Integer.compareUnsigned(a[i], b[i]);
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * dest = a - b, where a &gt;= b
+     */
+    private static void subtract(final int[] a, final int[] b, final int[] dest) {
+        long borrow = 0;
+        for (int i = 0; i < dest.length; i++) {
+            long difference = (a[i] & INT_MASK) - (b[i] & INT_MASK) - borrow;
+            dest[i] = (int) difference;
+            borrow = difference < 0 ? 1 : 0;
+        }
+    }
+
+    /**
+     * Two's complement negation
+     */
+    private static void negate(final int[] words) {
+        long carry = 1;
+        for (int i = 0; i < words.length; i++) {
+            carry += ~words[i] & INT_MASK;
+            words[i] = (int) carry;
+            carry >>>= 32;
+        }
+    }
+}
@@ -0,0 +1,267 @@
+package iota.rocksdb.crypto;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import iota.rocksdb.test.util.Converter;
+import iota.rocksdb.test.util.Pair;
+import iota.rocksdb.test.util.TransactionTestUtils;
+
+/**
+ * Searches a nonce for a transaction, so that its hash ends with at least {@code minWeightMagnitude} zero trits.
+ *
+ * <p>
+ *     The search runs on the bit-sliced pair state of {@link Curl}, so every transform tests 64 nonces,
+ *     one per bit index. The transaction without its last chunk is absorbed once; every thread starts from that
+ *     state and only transforms the last chunk for every set of nonces it tests.
+ * </p>
+ * <p>
+ *     The nonce is split in three parts:
+ *     <ul>
+ *         <li>The first {@value #LANE_TRITS} trits are different for each of the 64 bits of a pair.</li>
+ *         <li>The next {@value #THREAD_TRITS} trits hold the index of the searching thread,
+ *         so threads never test the same nonce.</li>
+ *         <li>The remaining trits are incremented by every thread after each transform.</li>
+ *     </ul>
+ * </p>
+ */
+public class PearlDiver {
+
+    private static final int TRANSACTION_LENGTH = TransactionTestUtils.TRINARY_SIZE;
+    private static final int CHUNK_OFFSET = TRANSACTION_LENGTH - Sponge.HASH_LENGTH;
+
+    /**
+     * Nonce position inside the last chunk of the transaction
+     */
+    private static final int NONCE_OFFSET = Sponge.HASH_LENGTH - 81;
+
+    static final int LANE_TRITS = 4;
+    static final int THREAD_TRITS = 8;
+    private static final int COUNTER_OFFSET = NONCE_OFFSET + LANE_TRITS + THREAD_TRITS;
+    private static final int MAX_THREADS = 3280; // (3^8 - 1) / 2
+
+    /**
+     * The cancellation flags of the running searches, every search has its own
+     */
+    private final Set<AtomicBoolean> searches = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Stops all running searches, including searches which are still starting their threads.
+     * They return <code>false</code> without changing the transaction.
+     */
+    public void cancel() {
+        for (AtomicBoolean cancelled : searches) {
+            cancelled.set(true);
+        }
+    }
+
+    /**
+     * @return The amount of searches which are running
+     */
+    int runningSearches() {
+        return searches.size();
+    }
+
+    /**
+     * Searches a nonce on one thread per available processor
+     *
+     * @see #search(byte[], int, int)
+     * @param transactionTrits The transaction trits, the nonce is written into these trits when found
+     * @param minWeightMagnitude The minimum amount of trailing zero trits of the transaction hash
+     * @return <code>true</code> if a nonce was found, <code>false</code> if the search was cancelled
+     * @throws InterruptedException when the calling thread is interrupted while waiting for the search
+     */
+    public boolean search(byte[] transactionTrits, int minWeightMagnitude) throws InterruptedException {
+        return search(transactionTrits, minWeightMagnitude, 0);
+    }
+
+    /**
+     * Searches a nonce for the transaction. Every thread tests 64 nonces per transform,
+     * until one of them finds a hash with at least {@code minWeightMagnitude} trailing zeros or the search is cancelled.
+     *
+     * @param transactionTrits The transaction trits, the nonce is written into these trits when found
+     * @param minWeightMagnitude The minimum amount of trailing zero trits of the transaction hash
+     * @param numberOfThreads The amount of threads to search on, <code>0</code> or less for one per available processor
+     * @return <code>true</code> if a nonce was found, <code>false</code> if the search was cancelled
+     * @throws InterruptedException when the calling thread is interrupted while waiting for the search
+     */
+    public boolean search(byte[] transactionTrits, int minWeightMagnitude, int numberOfThreads)
+            throws InterruptedException {
+        if (transactionTrits.length != TRANSACTION_LENGTH) {
+            throw new IllegalArgumentException("Invalid transaction trits length: " + transactionTrits.length);
+        }
+        if (minWeightMagnitude < 0 || minWeightMagnitude > Sponge.HASH_LENGTH) {
+            throw new IllegalArgumentException("Invalid min weight magnitude: " + minWeightMagnitude);
+        }
+        if (numberOfThreads <= 0) {
+            numberOfThreads = Runtime.getRuntime().availableProcessors();
+        }
+        numberOfThreads = Math.min(numberOfThreads, MAX_THREADS);
+
+        // Registered before any thread starts, so a cancel while starting stops this search too
+        AtomicBoolean cancelled = new AtomicBoolean();
+        searches.add(cancelled);
+        Result result = new Result();
+        List<Thread> threads = new ArrayList<>(numberOfThreads);
+        try {
+            Searcher prototype = new Searcher(transactionTrits, minWeightMagnitude);
+            for (int i = 0; i < numberOfThreads && !cancelled.get(); i++) {
+                Searcher searcher = new Searcher(prototype, i);
+                Thread thread = new Thread(() -> run(searcher, result, cancelled), "PearlDiver-" + i);
+                thread.setDaemon(true);
+                threads.add(thread);
+                thread.start();
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+        } catch (InterruptedException e) {
+            cancelled.set(true);
+            throw e;
+        } finally {
+            searches.remove(cancelled);
+        }
+
+        synchronized (result) {
+            if (result.nonce == null) {
+                return false;
+            }
+            System.arraycopy(result.nonce, 0, transactionTrits, CHUNK_OFFSET + NONCE_OFFSET, result.nonce.length);
+            return true;
+        }
+    }
+
+    private void run(Searcher searcher, Result result, AtomicBoolean cancelled) {
+        while (!cancelled.get() && !Thread.currentThread().isInterrupted()) {
+            long mask = searcher.next();
+            if (mask != 0) {
+                synchronized (result) {
+                    if (result.nonce == null) {
+                        result.nonce = searcher.nonce(Long.numberOfTrailingZeros(mask));
+                        cancelled.set(true);
+                    }
+                }
+                return;
+            }
+        }
+    }
+
+    private static class Result {
+        private byte[] nonce;
+    }
+
+    /**
+     * Tests 64 nonces per call to {@link #next()}, starting from the absorbed transaction
+     */
+    static class Searcher {
+        private final Curl curl;
+        private final long[] midStateLow;
+        private final long[] midStateHigh;
+        private final int minWeightMagnitude;
+
+        /**
+         * Absorbs the transaction up to its last chunk and prepares the nonces of the 64 lanes
+         */
+        Searcher(byte[] transactionTrits, int minWeightMagnitude) {
+            this.minWeightMagnitude = minWeightMagnitude;
+            curl = new Curl(true, SpongeFactory.Mode.CURLP81);
+            Pair<long[], long[]> transaction = Converter.longPair(transactionTrits);
+            curl.absorb(transaction, 0, CHUNK_OFFSET);
+
+            midStateLow = new long[Curl.STATE_LENGTH];
+            midStateHigh = new long[Curl.STATE_LENGTH];
+            curl.getPairState(midStateLow, midStateHigh);
+            System.arraycopy(transaction.low, CHUNK_OFFSET, midStateLow, 0, Sponge.HASH_LENGTH);
+            System.arraycopy(transaction.hi, CHUNK_OFFSET, midStateHigh, 0, Sponge.HASH_LENGTH);
+
+            // every lane gets its own value in the first nonce trits
+            byte[] laneTrits = new byte[LANE_TRITS];
+            for (int i = NONCE_OFFSET; i < NONCE_OFFSET + LANE_TRITS; i++) {
+                midStateLow[i] = Converter.HIGH_LONG_BITS;
+                midStateHigh[i] = Converter.HIGH_LONG_BITS;
+            }
+            for (int lane = 0; lane < Curl.BATCH_SIZE; lane++) {
+                Converter.copyTrits(lane, laneTrits, 0, LANE_TRITS);
+                for (int i = 0; i < LANE_TRITS; i++) {
+                    if (laneTrits[i] == 1) {
+                        midStateLow[NONCE_OFFSET + i] &= ~(1L << lane);
+                    } else if (laneTrits[i] == -1) {
+                        midStateHigh[NONCE_OFFSET + i] &= ~(1L << lane);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Creates a searcher for a thread, starting from the absorbed state of {@code prototype}
+         */
+        Searcher(Searcher prototype, int threadIndex) {
+            minWeightMagnitude = prototype.minWeightMagnitude;
+            curl = new Curl(true, SpongeFactory.Mode.CURLP81);
+            midStateLow = prototype.midStateLow.clone();
+            midStateHigh = prototype.midStateHigh.clone();
+
+            byte[] threadTrits = new byte[THREAD_TRITS];
+            Converter.copyTrits(threadIndex, threadTrits, 0, THREAD_TRITS);
+            for (int i = 0; i < THREAD_TRITS; i++) {
+                int index = NONCE_OFFSET + LANE_TRITS + i;
+                midStateLow[index] = threadTrits[i] == 1 ? 0 : Converter.HIGH_LONG_BITS;
+                midStateHigh[index] = threadTrits[i] == -1 ? 0 : Converter.HIGH_LONG_BITS;
+            }
+        }
+
+        /**
+         * Hashes the current 64 nonces and moves on to the next 64
+         *
+         * @return A mask of the lanes whose hash has enough trailing zeros, <code>0</code> if none
+         */
+        long next() {
+            curl.transform(midStateLow, midStateHigh);
+            long[] low = curl.stateLow();
+            long[] high = curl.stateHigh();
+            long mask = Converter.HIGH_LONG_BITS;
+            for (int i = Sponge.HASH_LENGTH - minWeightMagnitude; i < Sponge.HASH_LENGTH && mask != 0; i++) {
+                mask &= ~(low[i] ^ high[i]);
+            }
+            if (mask == 0) {
+                increment();
+            }
+            return mask;
+        }
+
+        /**
+         * @return The nonce trits of a lane
+         */
+        byte[] nonce(int lane) {
+            byte[] nonce = new byte[Sponge.HASH_LENGTH - NONCE_OFFSET];
+            Pair<long[], long[]> pair = new Pair<>(midStateLow, midStateHigh);
+            byte[] chunk = Converter.trits(pair, lane);
+            System.arraycopy(chunk, NONCE_OFFSET, nonce, 0, nonce.length);
+            return nonce;
+        }
+
+        /**
+         * Adds 1 to the counter part of the nonce, which holds the same value in every lane
+         */
+        private void increment() {
+            for (int i = COUNTER_OFFSET; i < Sponge.HASH_LENGTH; i++) {
+                if (midStateLow[i] == 0) {
+                    // 1 + 1 = -1, carry
+                    midStateLow[i] = Converter.HIGH_LONG_BITS;
+                    midStateHigh[i] = 0;
+                } else if (midStateHigh[i] == 0) {
+                    // -1 + 1 = 0
+                    midStateHigh[i] = Converter.HIGH_LONG_BITS;
+                    return;
+                } else {
+                    // 0 + 1 = 1
+                    midStateLow[i] = 0;
+                    return;
+                }
+            }
+        }
+    }
+}
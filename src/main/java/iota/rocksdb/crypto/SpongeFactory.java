@@ -14,7 +14,10 @@ public abstract class SpongeFactory {
         CURLP81,
         CURLP27,
         KERL,
-        //BCURLT
+        /**
+         * Bit-sliced Curl-P-81, hashing up to {@value Curl#BATCH_SIZE} inputs per transform
+         */
+        BCURLT
     }
 
     /**
@@ -24,9 +27,10 @@ public abstract class SpongeFactory {
      */
     public static Sponge create(Mode mode){
         switch (mode) {
-            case CURLP81: return new Curl(mode);
-            case CURLP27: return new Curl(mode);
-            //case BCURLT: return new Curl(true, mode);
+            case CURLP81: return new FastCurl(mode);
+            case CURLP27: return new FastCurl(mode);
+            case KERL: return new Kerl();
+            case BCURLT: return new Curl(true, mode);
             default: return null;
         }
     }
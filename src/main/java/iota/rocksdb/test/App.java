@@ -1,55 +1,53 @@
 package iota.rocksdb.test;
 
+import java.io.File;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
-import iota.rocksdb.test.persist.HashFactory;
-import iota.rocksdb.test.persist.Indexable;
 import iota.rocksdb.test.persist.Persistable;
-import iota.rocksdb.test.util.TransactionTestUtils;
+import iota.rocksdb.test.workload.WorkloadDriver;
+import iota.rocksdb.test.workload.WorkloadResult;
+import iota.rocksdb.test.workload.WorkloadSpec;
 
 /**
- * Hello world!
+ * Runs a workload against the persistence provider, see {@link WorkloadSpec} for the properties of a workload.
+ *
+ * <pre>
+ * java iota.rocksdb.test.App [workload.properties]
+ * </pre>
  *
+ * Without a file the default workload runs. Stopping the process ends the run and closes the database cleanly.
  */
 public class App {
+
+    private static final Logger log = LoggerFactory.getLogger(App.class);
+
     public static final Map<String, Class<? extends Persistable>> COLUMN_FAMILIES =
         new LinkedHashMap<String, Class<? extends Persistable>>() {{
             put("transaction", Transaction.class);
         }};
-        
-    RocksDBPersistenceProvider provider;
-            
-    public App() throws Exception {
-        provider = new RocksDBPersistenceProvider(
-                "/home/brord/Desktop/Work/IOTA/rocksdbtest/db", 
-                "/home/brord/Desktop/Work/IOTA/rocksdbtest/log", 
-                "/home/brord/Desktop/Work/IOTA/rocksdbtest/config.properties", 
-                1, COLUMN_FAMILIES, null);
-        provider.init();
-        
-        Indexable index = getIndexable();
-        Transaction tx = getTransaction();
-        provider.save(tx, index);
-        System.out.println(provider.getPersistanceSize());
-        provider.shutdown();
-    }
-    
-    private Transaction getTransaction() {
-        return TransactionTestUtils.getTransaction();
-    }
-    
-    private Indexable getIndexable() {
-        Indexable index = HashFactory.TRANSACTION.create("GQQOWD9RWTC9VAH9KIJLDSTEWH9YGOBMVYDQJYSOVVETXNDFRAZWMKPGAHPHZYLJZGNIUNDQ");
-        return index;
-    }
-    
-    public static void main( String[] args ) {
-        try {
-            new App();
-        } catch (Exception e) {
-            // TODO Auto-generated catch block
-            e.printStackTrace();
-        }
+
+    public static void main(String[] args) throws Exception {
+        WorkloadSpec spec = args.length > 0 ? WorkloadSpec.load(new File(args[0])) : new WorkloadSpec(new Properties());
+        WorkloadDriver driver = new WorkloadDriver(spec);
+
+        Thread main = Thread.currentThread();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            driver.stop();
+            try {
+                // Let the run shut the database down
+                main.join(TimeUnit.MINUTES.toMillis(1));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, "workload-stop"));
+
+        WorkloadResult result = driver.run();
+        log.info("Total: {}", result);
     }
 }
@@ -0,0 +1,23 @@
+package iota.rocksdb.test;
+
+/**
+ * How {@link RocksDBPersistenceProvider} opens its database.
+ */
+public enum OpenMode {
+    /**
+     * The only process which writes to the database, creates the database and missing column families
+     */
+    READ_WRITE,
+
+    /**
+     * Reads the database as it was when it was opened, the database must exist.
+     * Can be used while another process has the database open for writing.
+     */
+    READ_ONLY,
+
+    /**
+     * Follows a database which is written by another process.
+     * Sees new writes of that process after catching up with it.
+     */
+    SECONDARY
+}
@@ -0,0 +1,87 @@
+package iota.rocksdb.test;
+
+import java.util.List;
+
+import iota.rocksdb.test.persist.Indexable;
+import iota.rocksdb.test.persist.Persistable;
+import iota.rocksdb.test.util.Pair;
+
+/**
+ * Stores {@link Persistable} models by their {@link Indexable}, in a column family per model class.
+ */
+public interface PersistenceProvider {
+
+    void init() throws Exception;
+
+    boolean isAvailable();
+
+    void shutdown();
+
+    boolean save(Persistable thing, Indexable index) throws Exception;
+
+    /**
+     * Saves all models and their metadata in a single atomic write
+     *
+     * @param models The index of every model, paired with the model itself
+     * @return <code>true</code> when the batch was written
+     * @throws Exception when the write failed, nothing of the batch is saved in that case
+     */
+    boolean saveBatch(List<Pair<Indexable, Persistable>> models) throws Exception;
+
+    /**
+     * Deletes a model and its metadata
+     *
+     * @param model The class of the model
+     * @param index The index of the model
+     * @return <code>true</code> when the model was stored
+     * @throws Exception when the delete failed
+     */
+    boolean delete(Class<?> model, Indexable index) throws Exception;
+
+    Persistable get(Class<?> model, Indexable index) throws Exception;
+
+    /**
+     * Loads many models of the same class at once
+     *
+     * @param model The class of the models
+     * @param indexes The index of every model
+     * @return The models in the same order as the indexes, models which are not stored don't {@link Persistable#exists()}
+     * @throws Exception when reading failed
+     */
+    List<Persistable> getAll(Class<?> model, List<? extends Indexable> indexes) throws Exception;
+
+    boolean mayExist(Class<?> model, Indexable index);
+
+    /**
+     * @param model The class of the models
+     * @return The amount of stored models
+     * @throws Exception when reading failed
+     */
+    long count(Class<?> model) throws Exception;
+
+    /**
+     * Reads models in the bytewise order of their index
+     *
+     * @param model The class of the models
+     * @param from The first index to read, <code>null</code> to start at the lowest index
+     * @param limit The maximum amount of models to read
+     * @return The models with their index, in order
+     * @throws Exception when reading failed
+     */
+    List<Pair<Indexable, Persistable>> scan(Class<?> model, Indexable from, int limit) throws Exception;
+
+    /**
+     * Finds models whose index starts with a tryte prefix, such as the first trytes of an address or hash
+     *
+     * @param model The class of the models
+     * @param trytePrefix The first trytes of the index, at most 81
+     * @param limit The maximum amount of models to read
+     * @return The matching models with their index, in the bytewise order of their index
+     * @throws Exception when reading failed
+     */
+    List<Pair<Indexable, Persistable>> findByPrefix(Class<?> model, String trytePrefix, int limit) throws Exception;
+
+    void clear(Class<?> column) throws Exception;
+
+    void clearMetadata(Class<?> column) throws Exception;
+}
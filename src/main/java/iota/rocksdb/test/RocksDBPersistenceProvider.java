@@ -4,51 +4,99 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.security.SecureRandom;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
-import java.util.Objects;
 import java.util.Properties;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.apache.commons.collections4.MapUtils;
+import org.rocksdb.BlockBasedTableConfig;
 import org.rocksdb.BloomFilter;
 import org.rocksdb.Cache;
 import org.rocksdb.ColumnFamilyDescriptor;
 import org.rocksdb.ColumnFamilyHandle;
 import org.rocksdb.ColumnFamilyOptions;
 import org.rocksdb.DBOptions;
+import org.rocksdb.DbPath;
 import org.rocksdb.Env;
 import org.rocksdb.FlushOptions;
-import org.rocksdb.Range;
+import org.rocksdb.LRUCache;
+import org.rocksdb.LevelMetaData;
+import org.rocksdb.LiveFileMetaData;
+import org.rocksdb.LogFile;
+import org.rocksdb.MemoryUsageType;
+import org.rocksdb.MemoryUtil;
+import org.rocksdb.Options;
+import org.rocksdb.OptionsUtil;
+import org.rocksdb.RateLimiter;
+import org.rocksdb.ReadOptions;
 import org.rocksdb.RocksDB;
 import org.rocksdb.RocksDBException;
 import org.rocksdb.RocksIterator;
-import org.rocksdb.SizeApproximationFlag;
-import org.rocksdb.Slice;
 import org.rocksdb.SstFileManager;
 import org.rocksdb.Statistics;
 import org.rocksdb.TickerType;
+import org.rocksdb.WriteBatch;
+import org.rocksdb.WriteOptions;
+import org.rocksdb.util.SizeUnit;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import iota.rocksdb.test.persist.HashFactory;
 import iota.rocksdb.test.persist.Indexable;
 import iota.rocksdb.test.persist.Persistable;
+import iota.rocksdb.test.service.IoExecutor;
+import iota.rocksdb.test.util.Converter;
 import iota.rocksdb.test.util.IotaIOUtils;
+import iota.rocksdb.test.throttle.StallState;
+import iota.rocksdb.test.throttle.WriteStallController;
+import iota.rocksdb.test.usage.ColumnFamilyUsage;
+import iota.rocksdb.test.usage.StorageUsage;
+import iota.rocksdb.test.util.Pair;
+import iota.rocksdb.test.util.StripedLock;
+import iota.rocksdb.test.warmup.CacheWarmer;
+import iota.rocksdb.test.warmup.HotKeyTracker;
 
-public class RocksDBPersistenceProvider {
+public class RocksDBPersistenceProvider implements PersistenceProvider {
     
     Logger log = LoggerFactory.getLogger(RocksDBPersistenceProvider.class);
 
     private static final int BLOOM_FILTER_BITS_PER_KEY = 10;
 
+    private static final String HOT_KEYS_FILE = "hot-keys";
+    private static final int WARM_UP_BATCH_SIZE = 256;
+    private static final long STALL_POLL_INTERVAL_MILLIS = 100;
+    private static final double MEMTABLE_PREFIX_BLOOM_RATIO = 0.1;
+    private static final int MAX_PREFIX_TRYTES = 81;
+
+    /**
+     * Counters live in the default column family, which holds no models. The marker tells that they are exact.
+     */
+    private static final String COUNTER_PREFIX = "count:";
+    private static final byte[] COUNTERS_MARKER = "counters".getBytes(StandardCharsets.UTF_8);
+    private static final String COUNTER_MERGE_OPERATOR = "uint64add";
+    private static final int WRITE_LOCK_STRIPES = 256;
+    private static final int DELETE_BATCH_SIZE = 10_000;
+
 
     private final List<ColumnFamilyHandle> columnFamilyHandles = new ArrayList<>();
     private final SecureRandom seed = new SecureRandom();
@@ -58,11 +106,16 @@ public class RocksDBPersistenceProvider {
     private String configPath;
     
     private final int cacheSize;
+    private final WorkloadProfile profile;
+    private final Properties dbOverrides = new Properties();
+    private final Properties columnFamilyOverrides = new Properties();
     private final Map<String, Class<? extends Persistable>> columnFamilies;
     private final Map.Entry<String, Class<? extends Persistable>> metadataColumnFamily;
 
     private Map<Class<?>, ColumnFamilyHandle> classTreeMap;
     private Map<Class<?>, ColumnFamilyHandle> metadataReference = Collections.emptyMap();
+    private Map<String, ColumnFamilyHandle> handlesByName = Collections.emptyMap();
+    private Map<Class<?>, String> columnFamilyNames = Collections.emptyMap();
 
     private RocksDB db;
     // DBOptions is only used in initDB(). However, it is closeable - so we keep a reference for shutdown.
@@ -73,7 +126,42 @@ public class RocksDBPersistenceProvider {
     private SstFileManager sstFileManager;
     private Cache cache, compressedCache;
     private ColumnFamilyOptions columnFamilyOptions;
+
+    /**
+     * Options of single column families, loaded from the latest OPTIONS file or created for their own data paths
+     */
+    private final List<ColumnFamilyOptions> familyOptions = new ArrayList<>();
+
+    private final List<DbPath> dataPaths = new ArrayList<>();
+    private final Map<String, List<DbPath>> columnFamilyPaths = new HashMap<>();
+    private final List<Path> tierPaths = new ArrayList<>();
     private Statistics statistics;
+
+    private int ioThreads = Runtime.getRuntime().availableProcessors() * 2;
+    private int maxInFlightRequests = 1024;
+    private IoExecutor ioExecutor;
+
+    private OpenMode openMode = OpenMode.READ_WRITE;
+    private String secondaryPath;
+    private long catchUpIntervalMillis;
+    private ScheduledExecutorService catchUpScheduler;
+
+    private long rateLimitBytesPerSecond = 0;
+    private RateLimiter rateLimiter;
+    private double throttleStartPressure = -1;
+    private long throttleMaxDelayMicros;
+    private WriteStallController stallController;
+
+    private int hotKeyCapacity = 0;
+    private int warmUpThreads = 2;
+    private HotKeyTracker hotKeys;
+    private CacheWarmer cacheWarmer;
+
+    private int prefixLength = 0;
+
+    private final StripedLock writeLocks = new StripedLock(WRITE_LOCK_STRIPES);
+    private ColumnFamilyHandle countersHandle;
+    private volatile boolean exactCounts;
     
     /**
      * Creates a new RocksDB provider without reading from a configuration file
@@ -103,6 +191,26 @@ public class RocksDBPersistenceProvider {
     public RocksDBPersistenceProvider(String dbPath, String logPath, String configPath, int cacheSize,
                                       Map<String, Class<? extends Persistable>> columnFamilies,
                                       Map.Entry<String, Class<? extends Persistable>> metadataColumnFamily) {
+        this(dbPath, logPath, configPath, cacheSize, WorkloadProfile.DEFAULT, columnFamilies, metadataColumnFamily);
+    }
+
+    /**
+     * Creates a new RocksDB provider tuned for a workload. Settings of the configuration file replace
+     * DB options of the profile.
+     *
+     * @param dbPath The location where the database will be stored
+     * @param logPath The location where the log files will be stored
+     * @param configPath The location where the RocksDB config is read from, can be <code>null</code>
+     * @param cacheSize the size of the block cache in KB, 0 to use the size of the profile
+     * @param profile The workload the options are tuned for
+     * @param columnFamilies A map of the names related to their Persistable class
+     * @param metadataColumnFamily Map of metadata used by the Persistable class, can be <code>null</code>
+     */
+    public RocksDBPersistenceProvider(String dbPath, String logPath, String configPath, int cacheSize,
+                                      WorkloadProfile profile,
+                                      Map<String, Class<? extends Persistable>> columnFamilies,
+                                      Map.Entry<String, Class<? extends Persistable>> metadataColumnFamily) {
+        this.profile = profile;
         this.dbPath = dbPath;
         this.logPath = logPath;
         this.cacheSize = cacheSize;
@@ -112,20 +220,267 @@ public class RocksDBPersistenceProvider {
 
     }
 
+    /**
+     * Replaces a DB option of the profile and configuration file. Must be called before {@link #init()}.
+     *
+     * @param name The RocksDB name of the option, like <tt>max_background_jobs</tt>
+     * @param value The value
+     * @return this provider
+     */
+    public RocksDBPersistenceProvider overrideDbOption(String name, String value) {
+        dbOverrides.setProperty(name, value);
+        return this;
+    }
+
+    /**
+     * Replaces a column family option of the profile, for all column families of the model.
+     * Must be called before {@link #init()}.
+     *
+     * @param name The RocksDB name of the option, like <tt>write_buffer_size</tt>
+     * @param value The value
+     * @return this provider
+     */
+    public RocksDBPersistenceProvider overrideColumnFamilyOption(String name, String value) {
+        columnFamilyOverrides.setProperty(name, value);
+        return this;
+    }
+
+    public WorkloadProfile getProfile() {
+        return profile;
+    }
+
+    /**
+     * Limits the executor the asynchronous methods run on. Must be called before {@link #init()}.
+     *
+     * @param threads The amount of I/O threads, ignored when the JDK supports virtual threads
+     * @param maxInFlight The maximum amount of asynchronous requests which are queued or running
+     * @return this provider
+     */
+    public RocksDBPersistenceProvider setIoExecutorLimits(int threads, int maxInFlight) {
+        this.ioThreads = threads;
+        this.maxInFlightRequests = maxInFlight;
+        return this;
+    }
+
+    /**
+     * Remembers recently read keys, which are written to the database directory on {@link #shutdown()}
+     * and read again in the background by the next {@link #init()}, so the block cache is warm soon after a restart.
+     * Must be called before {@link #init()}.
+     *
+     * @param keysPerColumnFamily The maximum amount of keys remembered per column family, 0 disables the warm-up
+     * @param threads The amount of batches read in parallel during the warm-up
+     * @return this provider
+     */
+    public RocksDBPersistenceProvider setCacheWarmUp(int keysPerColumnFamily, int threads) {
+        this.hotKeyCapacity = keysPerColumnFamily;
+        this.warmUpThreads = threads;
+        return this;
+    }
+
+    /**
+     * Opens the database read only, or read write which is the default. Must be called before {@link #init()}.
+     * Use {@link #setSecondaryInstance(String, long)} to open the database as a secondary instance.
+     *
+     * @param openMode {@link OpenMode#READ_WRITE} or {@link OpenMode#READ_ONLY}
+     * @return this provider
+     */
+    public RocksDBPersistenceProvider setOpenMode(OpenMode openMode) {
+        if (openMode == OpenMode.SECONDARY) {
+            throw new IllegalArgumentException("A secondary instance needs a path, use setSecondaryInstance");
+        }
+        this.openMode = openMode;
+        return this;
+    }
+
+    /**
+     * Opens the database as a secondary instance of a database which is written by another process.
+     * Must be called before {@link #init()}.
+     *
+     * @param secondaryPath The directory where this instance keeps its own info log and state
+     * @param catchUpIntervalMillis How often to catch up with the primary, 0 to only catch up by calling {@link #catchUp()}
+     * @return this provider
+     */
+    public RocksDBPersistenceProvider setSecondaryInstance(String secondaryPath, long catchUpIntervalMillis) {
+        this.openMode = OpenMode.SECONDARY;
+        this.secondaryPath = secondaryPath;
+        this.catchUpIntervalMillis = catchUpIntervalMillis;
+        return this;
+    }
+
+    public OpenMode getOpenMode() {
+        return openMode;
+    }
+
+    /**
+     * Reads the writes the primary made since the last catch up. Only possible for a secondary instance.
+     *
+     * @throws RocksDBException when catching up failed
+     */
+    public void catchUp() throws RocksDBException {
+        if (openMode != OpenMode.SECONDARY) {
+            throw new IllegalStateException("Only a secondary instance can catch up, this database is " + openMode);
+        }
+        db.tryCatchUpWithPrimary();
+    }
+
+    private void checkWritable() {
+        if (openMode != OpenMode.READ_WRITE) {
+            throw new IllegalStateException("Database is opened " + openMode + ", writing is not possible");
+        }
+    }
+
+    private void startCatchUp() {
+        catchUpScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "rocksdb-catch-up");
+            thread.setDaemon(true);
+            return thread;
+        });
+        catchUpScheduler.scheduleWithFixedDelay(() -> {
+            try {
+                db.tryCatchUpWithPrimary();
+            } catch (RocksDBException e) {
+                log.warn("Unable to catch up with the primary", e);
+            }
+        }, catchUpIntervalMillis, catchUpIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Adds a directory SST files are stored in, instead of the database directory. Must be called before {@link #init()}.
+     *
+     * <p>
+     *     Paths are filled in the order they were added: files move to the next path once a path holds its target size.
+     *     Lower levels are bigger and compacted later, so adding a fast disk first and a large, slow disk last
+     *     keeps recent data on the fast disk and the bottommost levels on the slow one.
+     * </p>
+     *
+     * @param path The directory
+     * @param targetSize The amount of bytes this path should hold
+     * @return this provider
+     */
+    public RocksDBPersistenceProvider addDataPath(String path, long targetSize) {
+        dataPaths.add(new DbPath(Paths.get(path), targetSize));
+        tierPaths.add(Paths.get(path));
+        return this;
+    }
+
+    /**
+     * Adds a directory SST files of a single column family are stored in, the same way as {@link #addDataPath(String, long)}.
+     * Column families with their own paths don't use the data paths. Must be called before {@link #init()}.
+     *
+     * @param columnFamily The name of the column family
+     * @param path The directory
+     * @param targetSize The amount of bytes this path should hold
+     * @return this provider
+     */
+    public RocksDBPersistenceProvider addColumnFamilyPath(String columnFamily, String path, long targetSize) {
+        columnFamilyPaths.computeIfAbsent(columnFamily, name -> new ArrayList<>())
+                .add(new DbPath(Paths.get(path), targetSize));
+        tierPaths.add(Paths.get(path));
+        return this;
+    }
+
+    /**
+     * Limits the rate at which flushes and compactions write, so they don't take all I/O from reads and the WAL.
+     * Must be called before {@link #init()}.
+     *
+     * @param bytesPerSecond The maximum amount of bytes written per second by background jobs, 0 for no limit
+     * @return this provider
+     */
+    public RocksDBPersistenceProvider setRateLimit(long bytesPerSecond) {
+        this.rateLimitBytesPerSecond = bytesPerSecond;
+        return this;
+    }
+
+    /**
+     * Lets {@link #save(Persistable, Indexable)} and {@link #saveBatch(List)} wait when the database gets close
+     * to a write stall, see {@link WriteStallController}. Must be called before {@link #init()}.
+     *
+     * @param startPressure The pressure at which writes start to wait, between 0 and 1
+     * @param maxDelayMicros How long a single write waits when RocksDB is about to stall
+     * @return this provider
+     */
+    public RocksDBPersistenceProvider setWriteThrottling(double startPressure, long maxDelayMicros) {
+        this.throttleStartPressure = startPressure;
+        this.throttleMaxDelayMicros = maxDelayMicros;
+        return this;
+    }
+
+    /**
+     * Builds bloom filters on the first bytes of every key, so {@link #findByPrefix(Class, String, int)} skips
+     * SST files and memtables without a matching key. Must be called before {@link #init()}.
+     * The filters only help prefixes of at least this many bytes, a byte holds
+     * {@value Converter#NUMBER_OF_TRITS_IN_A_BYTE} trits.
+     *
+     * @param bytes The length of the key prefix, 0 to disable prefix filters
+     * @return this provider
+     */
+    public RocksDBPersistenceProvider setPrefixLength(int bytes) {
+        if (bytes < 0) {
+            throw new IllegalArgumentException("Prefix length can't be negative: " + bytes);
+        }
+        this.prefixLength = bytes;
+        return this;
+    }
+
+    @Override
     public void init() throws Exception {
         log.info("Initializing Database on " + dbPath);
         initDB(dbPath, logPath, configPath, columnFamilies);
+        initCounters();
+        ioExecutor = new IoExecutor("rocksdb-io", ioThreads, maxInFlightRequests);
+        if (throttleStartPressure >= 0 && openMode == OpenMode.READ_WRITE) {
+            WriteStallController.Limits limits = new WriteStallController.Limits(
+                    columnFamilyOptions.softPendingCompactionBytesLimit(),
+                    columnFamilyOptions.level0SlowdownWritesTrigger(),
+                    columnFamilyOptions.maxWriteBufferNumber());
+            stallController = new WriteStallController(this::probeStallState, limits,
+                    throttleStartPressure, throttleMaxDelayMicros, STALL_POLL_INTERVAL_MILLIS);
+        }
+        if (openMode == OpenMode.SECONDARY && catchUpIntervalMillis > 0) {
+            startCatchUp();
+        }
+        if (hotKeyCapacity > 0) {
+            startWarmUp();
+        }
         available = true;
         log.info("RocksDB persistence provider initialized.");
     }
 
+    @Override
     public boolean isAvailable() {
         return this.available;
     }
 
 
+    @Override
     public void shutdown() {
-        if (db != null) {
+        if (catchUpScheduler != null) {
+            catchUpScheduler.shutdownNow();
+            try {
+                catchUpScheduler.awaitTermination(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (stallController != null) {
+            stallController.close();
+        }
+        if (cacheWarmer != null) {
+            cacheWarmer.close();
+        }
+        if (ioExecutor != null) {
+            ioExecutor.close();
+        }
+        if (hotKeys != null && db != null && openMode == OpenMode.READ_WRITE) {
+            try {
+                HotKeyTracker.write(Paths.get(dbPath, HOT_KEYS_FILE), hotKeys.snapshot());
+            } catch (IOException e) {
+                log.warn("Unable to save hot keys", e);
+            }
+        }
+        if (db != null && openMode != OpenMode.READ_WRITE) {
+            db.close();
+        } else if (db != null) {
             try (FlushOptions option = new FlushOptions().setAllowWriteStall(true).setWaitForFlush(true)){
                 
                 db.flush(option);
@@ -140,41 +495,579 @@ public class RocksDBPersistenceProvider {
         for (final ColumnFamilyHandle columnFamilyHandle : columnFamilyHandles) {
             IotaIOUtils.closeQuietly(columnFamilyHandle);
         }
-        IotaIOUtils.closeQuietly(db, options, bloomFilter, cache, compressedCache, columnFamilyOptions, statistics);
+        IotaIOUtils.closeQuietly(db, options, bloomFilter, cache, compressedCache, columnFamilyOptions, statistics,
+                rateLimiter);
+        IotaIOUtils.closeQuietly(familyOptions.toArray(new AutoCloseable[0]));
+        familyOptions.clear();
     }
 
+    @Override
     public boolean save(Persistable thing, Indexable index) throws Exception {
-        System.out.println("Persisting: " + thing);
-        System.out.println("Index: " + index);
-        
+        checkWritable();
+        if (stallController != null) {
+            stallController.throttle(1);
+        }
+        log.trace("Persisting {} at {}", thing, index);
+
         ColumnFamilyHandle handle = classTreeMap.get(thing.getClass());
-        db.put(handle, index.bytes(), thing.bytes());
+        byte[] key = index.bytes();
+        ReentrantLock lock = writeLocks.lock(key);
+        try (WriteBatch writeBatch = new WriteBatch();
+             WriteOptions writeOptions = new WriteOptions()) {
+            // Overwrites don't change the count
+            if (!exists(handle, key)) {
+                writeBatch.merge(countersHandle, counterKey(thing.getClass()), encodeCount(1));
+            }
+            writeBatch.put(handle, key, thing.bytes());
 
-        ColumnFamilyHandle referenceHandle = metadataReference.get(thing.getClass());
-        if (referenceHandle != null) {
-            db.put(referenceHandle, index.bytes(), thing.metadata());
+            ColumnFamilyHandle referenceHandle = metadataReference.get(thing.getClass());
+            if (referenceHandle != null) {
+                writeBatch.put(referenceHandle, key, thing.metadata());
+            }
+            db.write(writeOptions, writeBatch);
+        } finally {
+            lock.unlock();
+        }
+        return true;
+    }
+
+    @Override
+    public boolean saveBatch(List<Pair<Indexable, Persistable>> models) throws Exception {
+        checkWritable();
+        if (stallController != null) {
+            stallController.throttle(models.size());
+        }
+        List<byte[]> keys = new ArrayList<>(models.size());
+        for (Pair<Indexable, Persistable> entry : models) {
+            keys.add(entry.low.bytes());
+        }
+
+        ReentrantLock[] locks = writeLocks.lockAll(keys);
+        try (WriteBatch writeBatch = new WriteBatch();
+             WriteOptions writeOptions = new WriteOptions()) {
+            Map<Class<?>, Set<ByteBuffer>> added = new HashMap<>();
+            for (int i = 0; i < models.size(); i++) {
+                byte[] key = keys.get(i);
+                Persistable value = models.get(i).hi;
+
+                ColumnFamilyHandle handle = classTreeMap.get(value.getClass());
+                // A key which is stored or repeated in the batch is an overwrite
+                if (!exists(handle, key)) {
+                    added.computeIfAbsent(value.getClass(), model -> new HashSet<>()).add(ByteBuffer.wrap(key));
+                }
+                writeBatch.put(handle, key, value.bytes());
+
+                ColumnFamilyHandle referenceHandle = metadataReference.get(value.getClass());
+                if (referenceHandle != null) {
+                    writeBatch.put(referenceHandle, key, value.metadata());
+                }
+            }
+            for (Map.Entry<Class<?>, Set<ByteBuffer>> entry : added.entrySet()) {
+                writeBatch.merge(countersHandle, counterKey(entry.getKey()), encodeCount(entry.getValue().size()));
+            }
+            db.write(writeOptions, writeBatch);
+        } finally {
+            writeLocks.unlock(locks);
         }
         return true;
     }
 
+    /**
+     * Deletes a model with its metadata, and updates the count of its column family in the same write
+     */
+    @Override
+    public boolean delete(Class<?> model, Indexable index) throws Exception {
+        checkWritable();
+        return remove(model, index.bytes());
+    }
+
+    private boolean remove(Class<?> model, byte[] key) throws RocksDBException {
+        ColumnFamilyHandle handle = classTreeMap.get(model);
+        ReentrantLock lock = writeLocks.lock(key);
+        try (WriteBatch writeBatch = new WriteBatch();
+             WriteOptions writeOptions = new WriteOptions()) {
+            boolean existed = exists(handle, key);
+            if (existed) {
+                writeBatch.merge(countersHandle, counterKey(model), encodeCount(-1));
+            }
+            writeBatch.delete(handle, key);
+
+            ColumnFamilyHandle referenceHandle = metadataReference.get(model);
+            if (referenceHandle != null) {
+                writeBatch.delete(referenceHandle, key);
+            }
+            db.write(writeOptions, writeBatch);
+            return existed;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean exists(ColumnFamilyHandle handle, byte[] key) throws RocksDBException {
+        // The bloom filter of the column family answers most checks for new keys without reading data blocks,
+        // an overwrite costs a point read before the write
+        return db.keyMayExist(handle, key, null) && db.get(handle, key) != null;
+    }
+
+    @Override
     public Persistable get(Class<?> model, Indexable index) throws Exception {
-        Persistable object = (Persistable) model.newInstance();
-        object.read(db.get(classTreeMap.get(model), index == null ? new byte[0] : index.bytes()));
+        Persistable object = newModel(model);
+        byte[] key = index == null ? new byte[0] : index.bytes();
+        byte[] value = db.get(classTreeMap.get(model), key);
+        object.read(value);
 
         ColumnFamilyHandle referenceHandle = metadataReference.get(model);
         if (referenceHandle != null) {
-            object.readMetadata(db.get(referenceHandle, index == null ? new byte[0] : index.bytes()));
+            object.readMetadata(db.get(referenceHandle, key));
+        }
+
+        if (hotKeys != null && value != null) {
+            hotKeys.record(columnFamilyNames.get(model), key);
+            if (referenceHandle != null) {
+                hotKeys.record(metadataColumnFamily.getKey(), key);
+            }
         }
         return object;
     }
 
+    /**
+     * @return An empty model, which is filled by {@link Persistable#read(byte[])}
+     */
+    private static Persistable newModel(Class<?> model) throws ReflectiveOperationException {
+        return (Persistable) model.getDeclaredConstructor().newInstance();
+    }
+
+    @Override
     public boolean mayExist(Class<?> model, Indexable index) {
         ColumnFamilyHandle handle = classTreeMap.get(model);
-        return db.keyMayExist(handle, index.bytes(), new StringBuilder());
+        return db.keyMayExist(handle, index.bytes(), null);
     }
 
+    /**
+     * Loads the models with a single multi get
+     */
+    @Override
+    public List<Persistable> getAll(Class<?> model, List<? extends Indexable> indexes) throws Exception {
+        List<byte[]> keys = new ArrayList<>(indexes.size());
+        for (Indexable index : indexes) {
+            keys.add(index == null ? new byte[0] : index.bytes());
+        }
+
+        List<byte[]> values = db.multiGetAsList(Collections.nCopies(keys.size(), classTreeMap.get(model)), keys);
+        ColumnFamilyHandle referenceHandle = metadataReference.get(model);
+        List<byte[]> metadata = referenceHandle == null ? null
+                : db.multiGetAsList(Collections.nCopies(keys.size(), referenceHandle), keys);
+
+        List<Persistable> objects = new ArrayList<>(keys.size());
+        for (int i = 0; i < keys.size(); i++) {
+            Persistable object = newModel(model);
+            object.read(values.get(i));
+            if (metadata != null) {
+                object.readMetadata(metadata.get(i));
+            }
+            objects.add(object);
+
+            if (hotKeys != null) {
+                if (values.get(i) != null) {
+                    hotKeys.record(columnFamilyNames.get(model), keys.get(i));
+                }
+                if (metadata != null && metadata.get(i) != null) {
+                    hotKeys.record(metadataColumnFamily.getKey(), keys.get(i));
+                }
+            }
+        }
+        return objects;
+    }
+
+    /**
+     * Reads models in key order, see {@link PersistenceProvider#scan(Class, Indexable, int)}
+     */
+    @Override
+    public List<Pair<Indexable, Persistable>> scan(Class<?> model, Indexable from, int limit) throws Exception {
+        List<Pair<Indexable, Persistable>> models = new ArrayList<>(Math.min(limit, 1024));
+        ColumnFamilyHandle referenceHandle = metadataReference.get(model);
+        try (ReadOptions readOptions = new ReadOptions().setTotalOrderSeek(true);
+                RocksIterator iterator = db.newIterator(classTreeMap.get(model), readOptions)) {
+            if (from == null) {
+                iterator.seekToFirst();
+            } else {
+                iterator.seek(from.bytes());
+            }
+
+            for (; iterator.isValid() && models.size() < limit; iterator.next()) {
+                byte[] key = iterator.key();
+                Persistable object = newModel(model);
+                object.read(iterator.value());
+                if (referenceHandle != null) {
+                    object.readMetadata(db.get(referenceHandle, key));
+                }
+                models.add(new Pair<>(HashFactory.TRANSACTION.create(model, key, 0, key.length), object));
+            }
+            iterator.status();
+        }
+        return models;
+    }
+
+    /**
+     * Finds the models whose index starts with the given trytes. The trytes are converted into the byte prefix
+     * of the index, when they don't end on a byte boundary the trits of the last byte are compared after decoding.
+     * Uses the prefix bloom filters when the prefix covers {@link #setPrefixLength(int)} bytes.
+     */
+    @Override
+    public List<Pair<Indexable, Persistable>> findByPrefix(Class<?> model, String trytePrefix, int limit)
+            throws Exception {
+        if (trytePrefix.length() > MAX_PREFIX_TRYTES) {
+            throw new IllegalArgumentException("Prefix is longer than " + MAX_PREFIX_TRYTES + " trytes");
+        }
+        for (int i = 0; i < trytePrefix.length(); i++) {
+            if (Converter.TRYTE_ALPHABET.indexOf(trytePrefix.charAt(i)) < 0) {
+                throw new IllegalArgumentException("Invalid tryte in prefix: " + trytePrefix);
+            }
+        }
+
+        byte[] prefixTrits = new byte[trytePrefix.length() * Converter.NUMBER_OF_TRITS_IN_A_TRYTE];
+        Converter.trits(trytePrefix, prefixTrits, 0);
+        int fullBytes = prefixTrits.length / Converter.NUMBER_OF_TRITS_IN_A_BYTE;
+        int partialTrits = prefixTrits.length % Converter.NUMBER_OF_TRITS_IN_A_BYTE;
+        byte[] prefix = new byte[fullBytes];
+        Converter.bytes(prefixTrits, 0, prefix, 0, fullBytes * Converter.NUMBER_OF_TRITS_IN_A_BYTE);
+
+        List<Pair<Indexable, Persistable>> models = new ArrayList<>(Math.min(limit, 1024));
+        ColumnFamilyHandle referenceHandle = metadataReference.get(model);
+        byte[] lastTrits = new byte[Converter.NUMBER_OF_TRITS_IN_A_BYTE];
+        try (ReadOptions readOptions = new ReadOptions()) {
+            if (prefixLength > 0 && fullBytes >= prefixLength) {
+                readOptions.setPrefixSameAsStart(true);
+            } else {
+                // Shorter prefixes span several extractor prefixes, the filters can't be used
+                readOptions.setTotalOrderSeek(true);
+            }
+
+            try (RocksIterator iterator = db.newIterator(classTreeMap.get(model), readOptions)) {
+                for (iterator.seek(prefix); iterator.isValid() && models.size() < limit; iterator.next()) {
+                    byte[] key = iterator.key();
+                    if (!startsWith(key, prefix)) {
+                        break;
+                    }
+                    if (partialTrits > 0) {
+                        if (key.length <= fullBytes) {
+                            continue;
+                        }
+                        Converter.getTrits(key, fullBytes, lastTrits, 0, Converter.NUMBER_OF_TRITS_IN_A_BYTE);
+                        if (!Arrays.equals(Arrays.copyOf(lastTrits, partialTrits), Arrays.copyOfRange(prefixTrits,
+                                fullBytes * Converter.NUMBER_OF_TRITS_IN_A_BYTE, prefixTrits.length))) {
+                            continue;
+                        }
+                    }
+
+                    Persistable object = newModel(model);
+                    object.read(iterator.value());
+                    if (referenceHandle != null) {
+                        object.readMetadata(db.get(referenceHandle, key));
+                    }
+                    models.add(new Pair<>(HashFactory.TRANSACTION.create(model, key, 0, key.length), object));
+                }
+                iterator.status();
+            }
+        }
+        return models;
+    }
+
+    private static boolean startsWith(byte[] key, byte[] prefix) {
+        if (key.length < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (key[i] != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Asynchronous version of {@link #get(Class, Indexable)}, runs on the I/O executor
+     */
+    public CompletableFuture<Persistable> getAsync(Class<?> model, Indexable index) {
+        return ioExecutor.submit(() -> get(model, index));
+    }
+
+    /**
+     * Asynchronous version of {@link #save(Persistable, Indexable)}, runs on the I/O executor
+     */
+    public CompletableFuture<Boolean> saveAsync(Persistable thing, Indexable index) {
+        return ioExecutor.submit(() -> save(thing, index));
+    }
+
+    /**
+     * Asynchronous version of {@link #mayExist(Class, Indexable)}, runs on the I/O executor
+     */
+    public CompletableFuture<Boolean> mayExistAsync(Class<?> model, Indexable index) {
+        return ioExecutor.submit(() -> mayExist(model, index));
+    }
+
+    /**
+     * Asynchronous version of {@link #getAll(Class, List)}, runs on the I/O executor
+     */
+    public CompletableFuture<List<Persistable>> getAllAsync(Class<?> model, List<? extends Indexable> indexes) {
+        return ioExecutor.submit(() -> getAll(model, indexes));
+    }
+
+    /**
+     * Starts reading the keys which were hot before the last shutdown, if any were saved
+     */
+    private void startWarmUp() {
+        hotKeys = new HotKeyTracker(hotKeyCapacity);
+        Path file = Paths.get(dbPath, HOT_KEYS_FILE);
+        if (!Files.isRegularFile(file)) {
+            return;
+        }
+
+        try {
+            Map<String, List<byte[]>> keys = HotKeyTracker.read(file);
+            cacheWarmer = new CacheWarmer(keys, WARM_UP_BATCH_SIZE, warmUpThreads, this::warmUp);
+            log.info("Warming up {} hot keys", cacheWarmer.getTotal());
+        } catch (IOException e) {
+            log.warn("Unable to read hot keys, skipping warm-up", e);
+        }
+    }
+
+    private void warmUp(String columnFamily, List<byte[]> keys) throws RocksDBException {
+        ColumnFamilyHandle handle = handlesByName.get(columnFamily);
+        if (handle == null) {
+            return;
+        }
+        db.multiGetAsList(Collections.nCopies(keys.size(), handle), keys);
+
+        // Keys that are still hot but not read again before the next shutdown are remembered as well
+        for (byte[] key : keys) {
+            hotKeys.record(columnFamily, key);
+        }
+    }
+
+    /**
+     * @return The running or finished warm-up, <code>null</code> when there was nothing to warm up
+     */
+    public CacheWarmer getCacheWarmer() {
+        return cacheWarmer;
+    }
+
+    /**
+     * @param tickerType The statistic
+     * @return The value of the statistic since the database was opened
+     */
+    public long getTickerCount(TickerType tickerType) {
+        return statistics.getTickerCount(tickerType);
+    }
+
+    /**
+     * @param model The class of the column family
+     * @param property The name of an integer RocksDB property, like <tt>rocksdb.estimate-num-keys</tt>
+     * @return The value of the property for the column family of the model
+     * @throws RocksDBException when the property is unknown
+     */
+    public long getLongProperty(Class<?> model, String property) throws RocksDBException {
+        return db.getLongProperty(classTreeMap.get(model), property);
+    }
+
+    /**
+     * Counts the bytes of SST files per storage tier
+     *
+     * @return The size of all live SST files in every directory, including the database directory
+     */
+    public Map<String, Long> getTierUsage() {
+        return getTierUsage(null);
+    }
+
+    /**
+     * Counts the bytes of SST files of a column family per storage tier
+     *
+     * @param columnFamily The name of the column family, <code>null</code> for all column families
+     * @return The size of the live SST files in every directory. Directories without files are included with 0 bytes
+     */
+    public Map<String, Long> getTierUsage(String columnFamily) {
+        Map<String, Long> usage = new LinkedHashMap<>();
+        usage.put(Paths.get(dbPath).toString(), 0L);
+        for (Path path : tierPaths) {
+            usage.put(path.toString(), 0L);
+        }
+
+        for (LiveFileMetaData file : db.getLiveFilesMetaData()) {
+            if (columnFamily == null || columnFamily.equals(new String(file.columnFamilyName()))) {
+                usage.merge(Paths.get(file.path()).toString(), file.size(), Long::sum);
+            }
+        }
+        return usage;
+    }
+
+    /**
+     * Measures where disk space and memory go, per column family and for the whole database.
+     * Cheap enough to call periodically, no data is read.
+     *
+     * @return The current usage
+     * @throws RocksDBException when a property or the write ahead log files can't be read
+     */
+    public StorageUsage getStorageUsage() throws RocksDBException {
+        Map<String, ColumnFamilyUsage> columnFamilyUsage = new LinkedHashMap<>();
+        for (Map.Entry<String, ColumnFamilyHandle> entry : new TreeMap<>(handlesByName).entrySet()) {
+            ColumnFamilyHandle handle = entry.getValue();
+            List<LevelMetaData> levels = db.getColumnFamilyMetaData(handle).levels();
+            long[] sstBytesPerLevel = new long[levels.size()];
+            for (LevelMetaData level : levels) {
+                sstBytesPerLevel[level.level()] = level.size();
+            }
+            columnFamilyUsage.put(entry.getKey(), new ColumnFamilyUsage(entry.getKey(),
+                    db.getLongProperty(handle, "rocksdb.estimate-live-data-size"),
+                    sstBytesPerLevel,
+                    db.getLongProperty(handle, "rocksdb.size-all-mem-tables"),
+                    db.getLongProperty(handle, "rocksdb.estimate-table-readers-mem"),
+                    db.getLongProperty(handle, "rocksdb.block-cache-usage"),
+                    db.getLongProperty(handle, "rocksdb.block-cache-pinned-usage")));
+        }
+
+        long walBytes = 0;
+        for (LogFile walFile : db.getSortedWalFiles()) {
+            walBytes += walFile.sizeFileBytes();
+        }
+
+        Set<Cache> caches = new HashSet<>();
+        for (Cache configured : Arrays.asList(cache, compressedCache)) {
+            if (configured != null) {
+                caches.add(configured);
+            }
+        }
+        Map<MemoryUsageType, Long> memory = MemoryUtil.getApproximateMemoryUsageByType(
+                Collections.singletonList(db), caches);
+        return new StorageUsage(Collections.unmodifiableMap(columnFamilyUsage), walBytes,
+                sstFileManager.getTotalSize(), memory);
+    }
+
+    private StallState probeStallState() throws RocksDBException {
+        long pendingCompactionBytes = 0;
+        int level0Files = 0;
+        int immutableMemtables = 0;
+        List<ColumnFamilyHandle> handles = new ArrayList<>(classTreeMap.values());
+        handles.addAll(metadataReference.values());
+        for (ColumnFamilyHandle handle : handles) {
+            pendingCompactionBytes += db.getLongProperty(handle, "rocksdb.estimate-pending-compaction-bytes");
+            // Not an integer property, RocksDB only provides it as a string
+            level0Files = Math.max(level0Files,
+                    Integer.parseInt(db.getProperty(handle, "rocksdb.num-files-at-level0").trim()));
+            immutableMemtables = Math.max(immutableMemtables,
+                    (int) db.getLongProperty(handle, "rocksdb.num-immutable-mem-table"));
+        }
+        boolean writeStopped = db.getLongProperty("rocksdb.is-write-stopped") != 0;
+        return new StallState(pendingCompactionBytes, level0Files, immutableMemtables, writeStopped);
+    }
+
+    /**
+     * @return The controller which throttles writes, <code>null</code> when writes are not throttled
+     */
+    public WriteStallController getWriteStallController() {
+        return stallController;
+    }
+
+    /**
+     * @return The executor the asynchronous methods run on, for its metrics
+     */
+    public IoExecutor getIoExecutor() {
+        return ioExecutor;
+    }
+
+    /**
+     * Reads the exact count of the column family of a model, maintained by every write.
+     * Databases created before counting was added return the estimate of RocksDB until {@link #rebuildCounts()}.
+     */
+    @Override
     public long count(Class<?> model) throws Exception {
-        return getCountEstimate(model);
+        if (!exactCounts && db.get(countersHandle, COUNTERS_MARKER) == null) {
+            return getCountEstimate(model);
+        }
+        // A secondary instance sees the marker once the primary wrote it
+        exactCounts = true;
+        byte[] count = db.get(countersHandle, counterKey(model));
+        return count == null ? 0 : decodeCount(count);
+    }
+
+    /**
+     * @return <code>true</code> when {@link #count(Class)} is exact
+     */
+    public boolean hasExactCounts() throws RocksDBException {
+        return exactCounts || db.get(countersHandle, COUNTERS_MARKER) != null;
+    }
+
+    /**
+     * Counts every column family with a full scan and stores the counts, after which counting is exact.
+     * Only needed once for a database created before counting was added. Blocks all writes while counting.
+     *
+     * @return The count of every model
+     * @throws RocksDBException when reading or storing the counts failed
+     */
+    public Map<Class<?>, Long> rebuildCounts() throws RocksDBException {
+        checkWritable();
+        log.info("Rebuilding the counts of {} column families", classTreeMap.size());
+        Map<Class<?>, Long> counts = new LinkedHashMap<>();
+        ReentrantLock[] locks = writeLocks.lockAll();
+        try (WriteBatch writeBatch = new WriteBatch();
+             WriteOptions writeOptions = new WriteOptions()) {
+            for (Map.Entry<Class<?>, ColumnFamilyHandle> entry : classTreeMap.entrySet()) {
+                long count = 0;
+                try (ReadOptions readOptions = new ReadOptions().setTotalOrderSeek(true).setFillCache(false);
+                        RocksIterator iterator = db.newIterator(entry.getValue(), readOptions)) {
+                    for (iterator.seekToFirst(); iterator.isValid(); iterator.next()) {
+                        count++;
+                    }
+                    iterator.status();
+                }
+                // A put replaces all earlier increments
+                writeBatch.put(countersHandle, counterKey(entry.getKey()), encodeCount(count));
+                counts.put(entry.getKey(), count);
+            }
+            writeBatch.put(countersHandle, COUNTERS_MARKER, new byte[0]);
+            db.write(writeOptions, writeBatch);
+            exactCounts = true;
+        } finally {
+            writeLocks.unlock(locks);
+        }
+        log.info("Rebuilt counts: {}", counts);
+        return counts;
+    }
+
+    /**
+     * Marks the counts of a new database as exact, existing databases need {@link #rebuildCounts()}
+     */
+    private void initCounters() throws RocksDBException {
+        exactCounts = db.get(countersHandle, COUNTERS_MARKER) != null;
+        if (exactCounts || openMode != OpenMode.READ_WRITE) {
+            return;
+        }
+        for (ColumnFamilyHandle handle : classTreeMap.values()) {
+            try (ReadOptions readOptions = new ReadOptions().setTotalOrderSeek(true);
+                    RocksIterator iterator = db.newIterator(handle, readOptions)) {
+                iterator.seekToFirst();
+                if (iterator.isValid()) {
+                    log.warn("Counts are estimated until the counts of this database are rebuilt");
+                    return;
+                }
+            }
+        }
+        db.put(countersHandle, COUNTERS_MARKER, new byte[0]);
+        exactCounts = true;
+    }
+
+    private byte[] counterKey(Class<?> model) {
+        return (COUNTER_PREFIX + columnFamilyNames.get(model)).getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Encodes a count the way the <tt>uint64add</tt> merge operator expects, a negative count is a decrement
+     */
+    private static byte[] encodeCount(long count) {
+        return ByteBuffer.allocate(Long.BYTES).order(ByteOrder.LITTLE_ENDIAN).putLong(count).array();
+    }
+
+    private static long decodeCount(byte[] count) {
+        return ByteBuffer.wrap(count).order(ByteOrder.LITTLE_ENDIAN).getLong();
     }
 
     private long getCountEstimate(Class<?> model) throws RocksDBException {
@@ -182,34 +1075,62 @@ public class RocksDBPersistenceProvider {
         return db.getLongProperty(handle, "rocksdb.estimate-num-keys");
     }
     
+    @Override
     public void clear(Class<?> column) throws Exception {
         log.info("Deleting: {} entries", column.getSimpleName());
-        flushHandle(classTreeMap.get(column));
+        flushHandle(classTreeMap.get(column), column);
     }
 
+    @Override
     public void clearMetadata(Class<?> column) throws Exception {
         log.info("Deleting: {} metadata", column.getSimpleName());
-        flushHandle(metadataReference.get(column));
+        flushHandle(metadataReference.get(column), null);
     }
 
-    private void flushHandle(ColumnFamilyHandle handle) throws RocksDBException {
-        List<byte[]> itemsToDelete = new ArrayList<>();
-        try (RocksIterator iterator = db.newIterator(handle)) {
-
+    /**
+     * Deletes every key of the column family in batches. All writes are blocked meanwhile, so every key the iterator
+     * returns exists and the count drops by the size of each batch without reading the keys again.
+     *
+     * @param counted The model whose count is updated by the deletes, <code>null</code> for metadata
+     */
+    private void flushHandle(ColumnFamilyHandle handle, Class<?> counted) throws RocksDBException {
+        checkWritable();
+        ReentrantLock[] locks = writeLocks.lockAll();
+        try (ReadOptions readOptions = new ReadOptions().setTotalOrderSeek(true);
+                RocksIterator iterator = db.newIterator(handle, readOptions);
+                WriteBatch writeBatch = new WriteBatch();
+                WriteOptions writeOptions = new WriteOptions()) {
+            long deleted = 0;
+            int batched = 0;
             for (iterator.seekToLast(); iterator.isValid(); iterator.prev()) {
-                itemsToDelete.add(iterator.key());
+                writeBatch.delete(handle, iterator.key());
+                if (++batched == DELETE_BATCH_SIZE) {
+                    deleted += writeDeletes(writeBatch, writeOptions, counted, batched);
+                    batched = 0;
+                    log.info("Deleted: {}", deleted);
+                }
+            }
+            iterator.status();
+            deleted += writeDeletes(writeBatch, writeOptions, counted, batched);
+            if (deleted > 0) {
+                log.info("Deleted {} entries", deleted);
             }
+        } finally {
+            writeLocks.unlock(locks);
         }
-        if (!itemsToDelete.isEmpty()) {
-            log.info("Amount to delete: " + itemsToDelete.size());
+    }
+
+    private int writeDeletes(WriteBatch writeBatch, WriteOptions writeOptions, Class<?> counted, int deletes)
+            throws RocksDBException {
+        if (deletes == 0) {
+            return 0;
         }
-        int counter = 0;
-        for (byte[] itemToDelete : itemsToDelete) {
-            if (++counter % 10000 == 0) {
-                log.info("Deleted: {}", counter);
-            }
-            db.delete(handle, itemToDelete);
+        if (counted != null) {
+            writeBatch.merge(countersHandle, counterKey(counted), encodeCount(-deletes));
         }
+        db.write(writeOptions, writeBatch);
+        writeBatch.clear();
+        return deletes;
     }
 
     // options is closed in shutdown
@@ -227,121 +1148,285 @@ public class RocksDBPersistenceProvider {
 
             List<ColumnFamilyDescriptor> columnFamilyDescriptors = new ArrayList<>();
             // Pass columnFamilyDescriptors so that they are loaded from options file, we check modifications later
-            options = createOptions(logPath, configFile, columnFamilyDescriptors);
+            options = createOptions(path, logPath, configFile, columnFamilyDescriptors);
 
-            bloomFilter = new BloomFilter(BLOOM_FILTER_BITS_PER_KEY);
+            bloomFilter = new BloomFilter(BLOOM_FILTER_BITS_PER_KEY, false);
             
-            columnFamilyOptions = new ColumnFamilyOptions();
+            columnFamilyOptions = createColumnFamilyOptions();
             
             loadColumnFamilyDescriptors(columnFamilyDescriptors);
             
-            db = RocksDB.open(options, path, columnFamilyDescriptors, columnFamilyHandles);
-            db.enableFileDeletions(true);
+            if (openMode == OpenMode.READ_WRITE) {
+                // RocksDB only creates the last directory of a path
+                Files.createDirectories(Paths.get(path));
+                for (Path tierPath : tierPaths) {
+                    Files.createDirectories(tierPath);
+                }
+            }
+            switch (openMode) {
+                case READ_ONLY:
+                    db = RocksDB.openReadOnly(options, path, columnFamilyDescriptors, columnFamilyHandles);
+                    break;
+                case SECONDARY:
+                    db = RocksDB.openAsSecondary(options, path, secondaryPath, columnFamilyDescriptors,
+                            columnFamilyHandles);
+                    break;
+                default:
+                    db = RocksDB.open(options, path, columnFamilyDescriptors, columnFamilyHandles);
+                    db.enableFileDeletions(true);
+                    break;
+            }
 
             initClassTreeMap(columnFamilyDescriptors);
 
         } catch (Exception e) {
-            IotaIOUtils.closeQuietly(db, options, bloomFilter, columnFamilyOptions, cache, compressedCache);
+            IotaIOUtils.closeQuietly(db, options, bloomFilter, columnFamilyOptions, cache, compressedCache, rateLimiter);
+            IotaIOUtils.closeQuietly(familyOptions.toArray(new AutoCloseable[0]));
+            familyOptions.clear();
             throw e;
         }
     }
     
+    /**
+     * Merges the column families which exist in the database with the configured model.
+     * Existing column families keep their persisted options, even when they are not part of the model.
+     * Configured column families which don't exist yet are added with the default options and created on open.
+     *
+     * @param columnFamilyDescriptors The existing column families, extended with the missing ones
+     */
     private void loadColumnFamilyDescriptors(List<ColumnFamilyDescriptor> columnFamilyDescriptors) {
-        boolean needsUpdate = checkUpdate(columnFamilyDescriptors, columnFamilies.keySet());
-        if (!columnFamilyDescriptors.isEmpty() && needsUpdate) {
-            // We updated the database
-            log.info("IRI Database scheme has been updated.. Loading new ColumnFamilyDescriptors");
-            
+        Set<String> existing = new HashSet<>();
+        for (ColumnFamilyDescriptor descriptor : columnFamilyDescriptors) {
+            existing.add(new String(descriptor.getName()));
         }
-        
-        columnFamilyDescriptors.clear();
-        if (columnFamilyDescriptors.isEmpty()) {
-            //Add default column family. Main motivation is to not change legacy code
-            columnFamilyDescriptors.add(new ColumnFamilyDescriptor(RocksDB.DEFAULT_COLUMN_FAMILY, columnFamilyOptions));
-            for (String name : columnFamilies.keySet()) {
-                columnFamilyDescriptors.add(new ColumnFamilyDescriptor(name.getBytes(), columnFamilyOptions));
+
+        boolean newDatabase = existing.isEmpty();
+        String defaultName = new String(RocksDB.DEFAULT_COLUMN_FAMILY);
+        // The default column family only holds the counters, its persisted options are replaced
+        ColumnFamilyOptions counterOptions = new ColumnFamilyOptions().setMergeOperatorName(COUNTER_MERGE_OPERATOR);
+        familyOptions.add(counterOptions);
+        ColumnFamilyDescriptor defaultDescriptor = new ColumnFamilyDescriptor(RocksDB.DEFAULT_COLUMN_FAMILY,
+                counterOptions);
+        if (existing.contains(defaultName)) {
+            columnFamilyDescriptors.set(0, defaultDescriptor);
+        } else {
+            // The default column family always comes first
+            columnFamilyDescriptors.add(0, defaultDescriptor);
+        }
+
+        List<String> configured = new ArrayList<>(columnFamilies.keySet());
+        if (metadataColumnFamily != null) {
+            configured.add(metadataColumnFamily.getKey());
+        }
+        for (String name : configured) {
+            if (existing.remove(name)) {
+                continue;
+            }
+            if (openMode != OpenMode.READ_WRITE) {
+                // Only the writer can create column families
+                log.warn("Column family {} does not exist, it can't be read", name);
+                continue;
+            }
+            if (!newDatabase) {
+                log.info("Creating column family {}", name);
+            }
+            columnFamilyDescriptors.add(new ColumnFamilyDescriptor(name.getBytes(), columnFamilyOptions));
+        }
+
+        existing.remove(defaultName);
+        for (String name : existing) {
+            log.info("Keeping column family {} which is not part of the model", name);
+        }
+
+        if (isColumnFamilyOptionsConfigured()) {
+            for (int i = 0; i < columnFamilyDescriptors.size(); i++) {
+                byte[] name = columnFamilyDescriptors.get(i).getName();
+                if (configured.contains(new String(name))) {
+                    columnFamilyDescriptors.set(i, new ColumnFamilyDescriptor(name, columnFamilyOptions));
+                }
+            }
+        }
+
+        for (int i = 0; i < columnFamilyDescriptors.size(); i++) {
+            ColumnFamilyDescriptor descriptor = columnFamilyDescriptors.get(i);
+            List<DbPath> paths = columnFamilyPaths.get(new String(descriptor.getName()));
+            if (paths == null) {
+                continue;
             }
-            // metadata descriptor is always last
-            if (metadataColumnFamily != null) {
-                columnFamilyDescriptors.add(
-                        new ColumnFamilyDescriptor(metadataColumnFamily.getKey().getBytes(), columnFamilyOptions));
-                metadataReference = new HashMap<>();
+            ColumnFamilyOptions options = descriptor.getOptions();
+            if (options == columnFamilyOptions) {
+                // The shared options belong to all new column families
+                options = new ColumnFamilyOptions(columnFamilyOptions);
+                familyOptions.add(options);
+                columnFamilyDescriptors.set(i, new ColumnFamilyDescriptor(descriptor.getName(), options));
             }
+            options.setCfPaths(paths);
         }
     }
 
-    private boolean checkUpdate(List<ColumnFamilyDescriptor> columnFamilyDescriptors, Set<String> names) {
-        int totalDescriptors = columnFamilies.size() + (metadataColumnFamily != null ? 2 : 1); // +1 for default
-        if (totalDescriptors != columnFamilyDescriptors.size()) {
-            return true;
+    /**
+     * Reads the DB options and column families of an existing database from its latest OPTIONS file.
+     * Falls back to only listing the column families when there is no usable OPTIONS file.
+     *
+     * @param path The database directory
+     * @param columnFamilyDescriptors Filled with the existing column families
+     * @return The persisted DB options, or <code>null</code> when there are none
+     */
+    private DBOptions loadPersistedOptions(String path, List<ColumnFamilyDescriptor> columnFamilyDescriptors) {
+        if (!new File(path, "CURRENT").isFile()) {
+            return null;
         }
-        
-        // Does not prevent name changes, as this must be migrated. RocksDB will throw an error if attempted
-        // Should be fixed in Issue #1473
-        long count = names.stream().map(name -> name.getBytes()).filter(name -> {
+
+        DBOptions persisted = new DBOptions();
+        try {
+            OptionsUtil.loadLatestOptions(path, Env.getDefault(), persisted, columnFamilyDescriptors, true);
             for (ColumnFamilyDescriptor descriptor : columnFamilyDescriptors) {
-                if (Objects.deepEquals(name, descriptor.getName())) {
-                    return false;
-                }
+                familyOptions.add(descriptor.getOptions());
+            }
+            log.info("Loaded persisted options of {} column families", columnFamilyDescriptors.size());
+            return persisted;
+        } catch (RocksDBException e) {
+            log.warn("Unable to load persisted options, using configured options: {}", e.getMessage());
+            IotaIOUtils.closeQuietly(persisted);
+            columnFamilyDescriptors.clear();
+        }
+
+        try (Options listOptions = new Options()) {
+            for (byte[] name : RocksDB.listColumnFamilies(listOptions, path)) {
+                columnFamilyDescriptors.add(new ColumnFamilyDescriptor(name, columnFamilyOptions));
             }
-            return true;
-        }).count();
-        return count != 0;
+        } catch (RocksDBException e) {
+            log.warn("Unable to list column families: {}", e.getMessage());
+        }
+        return null;
     }
 
     private void initClassTreeMap(List<ColumnFamilyDescriptor> columnFamilyDescriptors) throws Exception {
         Map<Class<?>, ColumnFamilyHandle> classMap = new LinkedHashMap<>();
+        Map<Class<?>, String> classNames = new HashMap<>();
+        Map<String, ColumnFamilyHandle> byName = new HashMap<>();
         String mcfName = metadataColumnFamily == null ? "" : metadataColumnFamily.getKey();
-        //skip default column
-        int i = 1;
-        for (; i < columnFamilyDescriptors.size(); i++) {
-
+        for (int i = 0; i < columnFamilyDescriptors.size(); i++) {
             String name = new String(columnFamilyDescriptors.get(i).getName());
+            byName.put(name, columnFamilyHandles.get(i));
+            //skip default column, which holds the counters
+            if (i == 0) {
+                countersHandle = columnFamilyHandles.get(0);
+                continue;
+            }
+
             if (name.equals(mcfName)) {
                 Map<Class<?>, ColumnFamilyHandle> metadataRef = new HashMap<>();
                 metadataRef.put(metadataColumnFamily.getValue(), columnFamilyHandles.get(i));
                 metadataReference = MapUtils.unmodifiableMap(metadataRef);
-            }
-            else {
+            } else if (columnFamilies.containsKey(name)) {
                 classMap.put(columnFamilies.get(name), columnFamilyHandles.get(i));
+                classNames.put(columnFamilies.get(name), name);
             }
         }
-        for (; ++i < columnFamilyHandles.size(); ) {
-            db.dropColumnFamily(columnFamilyHandles.get(i));
-        }
 
         classTreeMap = MapUtils.unmodifiableMap(classMap);
+        columnFamilyNames = MapUtils.unmodifiableMap(classNames);
+        handlesByName = MapUtils.unmodifiableMap(byName);
     }
 
-    private DBOptions createOptions(String logPath, String configFile, List<ColumnFamilyDescriptor> columnFamilyDescriptors) throws IOException {
+    /**
+     * @return <code>true</code> when column family options were chosen for this run, which replace persisted options
+     */
+    private boolean isColumnFamilyOptionsConfigured() {
+        return profile != WorkloadProfile.DEFAULT || !columnFamilyOverrides.isEmpty() || prefixLength > 0;
+    }
+
+    private ColumnFamilyOptions createColumnFamilyOptions() {
+        Properties properties = profile.getColumnFamilyOptions();
+        properties.putAll(columnFamilyOverrides);
+
+        ColumnFamilyOptions options;
+        if (properties.isEmpty()) {
+            options = new ColumnFamilyOptions();
+        } else {
+            options = ColumnFamilyOptions.getColumnFamilyOptionsFromProps(properties);
+            if (options == null) {
+                throw new IllegalArgumentException("Invalid column family options: " + properties);
+            }
+            log.info("Column family options of profile {}: {}", profile, new TreeMap<>(properties));
+        }
+
+        // Every write checks whether its key exists to keep the counts exact, the filter answers that for new keys
+        // without reading data blocks. SST files also only get prefix filters with a filter policy.
+        BlockBasedTableConfig table = new BlockBasedTableConfig().setFilterPolicy(bloomFilter);
+        if (profile.configureTable(table)) {
+            long cacheBytes = cacheSize > 0 ? cacheSize * SizeUnit.KB : profile.getBlockCacheSize();
+            cache = new LRUCache(cacheBytes);
+            table.setBlockCache(cache);
+            log.info("Block cache of profile {}: {} bytes", profile, cacheBytes);
+        }
+        options.setTableFormatConfig(table);
+
+        if (prefixLength > 0) {
+            options.useFixedLengthPrefixExtractor(prefixLength);
+            options.setMemtablePrefixBloomSizeRatio(MEMTABLE_PREFIX_BLOOM_RATIO);
+            log.info("Prefix bloom filters on the first {} bytes of every key", prefixLength);
+        }
+        return options;
+    }
+
+    private DBOptions createOptions(String path, String logPath, String configFile, List<ColumnFamilyDescriptor> columnFamilyDescriptors) throws IOException {
         DBOptions options = null;
+        DBOptions persisted = loadPersistedOptions(path, columnFamilyDescriptors);
         File pathToLogDir = Paths.get(logPath).toFile();
         if (!pathToLogDir.exists() || !pathToLogDir.isDirectory()) {
-            boolean success = pathToLogDir.mkdir();
+            boolean success = pathToLogDir.mkdirs();
             if (!success) {
                 log.warn("Unable to make directory: {}", pathToLogDir);
             }
         }
 
+        Properties dbProperties = profile.getDbOptions();
         if (configFile != null) {
             File config = Paths.get(configFile).toFile();
             if (config.exists() && config.isFile() && config.canRead()) {
                 Properties configProperties = new Properties();
                 try (InputStream stream = new FileInputStream(config)){
                     configProperties.load(stream);
-                    options = DBOptions.getDBOptionsFromProps(configProperties);
-                } catch (IllegalArgumentException e) {
+                }
+                if (configProperties.isEmpty()) {
                     log.warn("RocksDB configuration file is empty, falling back to default values");
                 }
+                dbProperties.putAll(configProperties);
+            }
+        }
+        dbProperties.putAll(dbOverrides);
+
+        if (!dbProperties.isEmpty()) {
+            options = DBOptions.getDBOptionsFromProps(dbProperties);
+            if (options == null) {
+                throw new IllegalArgumentException("Invalid DB options: " + dbProperties);
             }
-        } 
+            log.info("DB options of profile {}: {}", profile, new TreeMap<>(dbProperties));
+        }
 
-        if (options == null){
-            options = new DBOptions();
+        // Configured options override the persisted options, otherwise tuning of the last run is kept
+        if (options == null) {
+            options = persisted != null ? persisted : new DBOptions();
+        } else {
+            IotaIOUtils.closeQuietly(persisted);
         }
         
-        options.setCreateIfMissing(true);
-        options.setCreateMissingColumnFamilies(true);
+        if (!dataPaths.isEmpty()) {
+            options.setDbPaths(dataPaths);
+        }
+        if (rateLimitBytesPerSecond > 0) {
+            options.setRateLimiter(rateLimiter = new RateLimiter(rateLimitBytesPerSecond));
+        }
+
+        boolean writable = openMode == OpenMode.READ_WRITE;
+        options.setCreateIfMissing(writable);
+        options.setCreateMissingColumnFamilies(writable);
+        if (openMode == OpenMode.SECONDARY) {
+            // A secondary instance can't know which files the primary deletes, so it must keep all of them open
+            options.setMaxOpenFiles(-1);
+        }
         
         //Defaults we always need to set
         options.setSstFileManager(sstFileManager);
@@ -350,21 +1435,11 @@ public class RocksDBPersistenceProvider {
         return options;
     }
     
+    /**
+     * @return The bytes of the SST files of all column families and the write ahead log
+     * @throws RocksDBException when the write ahead log files can't be listed
+     */
     public long getPersistanceSize() throws RocksDBException {
-        System.out.println(statistics.getTickerCount(TickerType.WAL_FILE_BYTES));
-        System.out.println(statistics.getTickerCount(TickerType.NUMBER_KEYS_WRITTEN));
-        
-        System.out.println(sstFileManager.getTotalSize());
-        
-        List<Range> ranges = new LinkedList<Range>();
-        ranges.add(new Range(
-                new Slice("AAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAA"), 
-                new Slice("999999999999999999999999999999999999999999999999999999999999999999999999999999999")));
-        
-        long[] size = new long[ranges.size()];
-        size = db.getApproximateSizes(columnFamilyHandles.get(0), ranges, SizeApproximationFlag.INCLUDE_FILES, SizeApproximationFlag.INCLUDE_MEMTABLES);
-        
-        System.out.println(Arrays.toString(size));
-        return size[0];
+        return getStorageUsage().getDiskBytes();
     }
 }
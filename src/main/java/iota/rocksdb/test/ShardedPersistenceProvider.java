@@ -0,0 +1,344 @@
+package iota.rocksdb.test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.rocksdb.RocksDBException;
+import org.rocksdb.TickerType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import iota.rocksdb.test.persist.Indexable;
+import iota.rocksdb.test.persist.Persistable;
+import iota.rocksdb.test.usage.StorageUsage;
+import iota.rocksdb.test.util.Bytes;
+import iota.rocksdb.test.util.Pair;
+
+/**
+ * Spreads models over several RocksDB instances, so every instance has its own write path, WAL and compactions.
+ *
+ * <p>
+ *     A model is stored in the shard chosen by the leading bytes of its index. Those bytes are uniformly distributed
+ *     for hashes, so shards fill up evenly. Operations on many models, counts and scans run on all shards in parallel.
+ *     Scans are merged back into a single ordered result.
+ * </p>
+ */
+public class ShardedPersistenceProvider implements PersistenceProvider {
+
+    private static final Logger log = LoggerFactory.getLogger(ShardedPersistenceProvider.class);
+
+    private final List<RocksDBPersistenceProvider> shards;
+    private final ExecutorService executor;
+
+    /**
+     * Creates a provider with a shard per path. Shards are stored in a <tt>shard-N</tt> directory of their path.
+     *
+     * @param dbPaths The location of every shard, preferably on different disks
+     * @param logPath The location where the log files of all shards will be stored
+     * @param cacheSize the size of the cache used by every shard
+     * @param columnFamilies A map of the names related to their Persistable class
+     * @param metadataColumnFamily Map of metadata used by the Persistable class, can be <code>null</code>
+     */
+    public ShardedPersistenceProvider(List<String> dbPaths, String logPath, int cacheSize,
+            Map<String, Class<? extends Persistable>> columnFamilies,
+            Map.Entry<String, Class<? extends Persistable>> metadataColumnFamily) {
+        if (dbPaths.isEmpty()) {
+            throw new IllegalArgumentException("At least one shard is needed");
+        }
+
+        List<RocksDBPersistenceProvider> shards = new ArrayList<>(dbPaths.size());
+        for (int i = 0; i < dbPaths.size(); i++) {
+            String name = "shard-" + i;
+            shards.add(new RocksDBPersistenceProvider(new File(dbPaths.get(i), name).getPath(),
+                    new File(logPath, name).getPath(), cacheSize, columnFamilies, metadataColumnFamily));
+        }
+        this.shards = Collections.unmodifiableList(shards);
+
+        AtomicInteger counter = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(shards.size(), runnable -> {
+            Thread thread = new Thread(runnable, "rocksdb-shard-" + counter.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * @return The shards, which can be configured before {@link #init()}
+     */
+    public List<RocksDBPersistenceProvider> getShards() {
+        return shards;
+    }
+
+    /**
+     * @param index The index of a model
+     * @return The position of the shard which stores the model
+     */
+    public int shardOf(Indexable index) {
+        byte[] key = index == null ? new byte[0] : index.bytes();
+        int leading;
+        if (key.length >= Integer.BYTES) {
+            leading = Bytes.firstInt(key);
+        } else {
+            leading = 0;
+            for (byte b : key) {
+                leading = leading << 8 | (b & 0xFF);
+            }
+        }
+        return Integer.remainderUnsigned(leading, shards.size());
+    }
+
+    private RocksDBPersistenceProvider shard(Indexable index) {
+        return shards.get(shardOf(index));
+    }
+
+    /**
+     * Runs a task on every shard in parallel
+     *
+     * @return The result of every shard, in shard order
+     */
+    private <T> List<T> onAllShards(ShardTask<T> task) throws Exception {
+        List<Future<T>> futures = new ArrayList<>(shards.size());
+        for (int i = 0; i < shards.size(); i++) {
+            int shard = i;
+            futures.add(executor.submit((Callable<T>) () -> task.run(shard, shards.get(shard))));
+        }
+
+        List<T> results = new ArrayList<>(shards.size());
+        for (Future<T> future : futures) {
+            try {
+                results.add(future.get());
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                throw cause instanceof Exception ? (Exception) cause : e;
+            }
+        }
+        return results;
+    }
+
+    private interface ShardTask<T> {
+
+        T run(int position, RocksDBPersistenceProvider shard) throws Exception;
+    }
+
+    @Override
+    public void init() throws Exception {
+        try {
+            onAllShards((position, shard) -> {
+                shard.init();
+                return null;
+            });
+        } catch (Exception e) {
+            shutdown();
+            throw e;
+        }
+        log.info("Initialized {} shards", shards.size());
+    }
+
+    @Override
+    public boolean isAvailable() {
+        return shards.stream().allMatch(RocksDBPersistenceProvider::isAvailable);
+    }
+
+    @Override
+    public void shutdown() {
+        try {
+            onAllShards((position, shard) -> {
+                shard.shutdown();
+                return null;
+            });
+        } catch (Exception e) {
+            log.error("Failed to shut down all shards", e);
+        }
+        executor.shutdown();
+    }
+
+    @Override
+    public boolean save(Persistable thing, Indexable index) throws Exception {
+        return shard(index).save(thing, index);
+    }
+
+    /**
+     * Saves the models of every shard in a single atomic write, shards are written in parallel.
+     * The batch as a whole is not atomic, when a shard fails the models of other shards can be saved.
+     */
+    @Override
+    public boolean saveBatch(List<Pair<Indexable, Persistable>> models) throws Exception {
+        List<List<Pair<Indexable, Persistable>>> perShard = new ArrayList<>(shards.size());
+        for (int i = 0; i < shards.size(); i++) {
+            perShard.add(new ArrayList<>());
+        }
+        for (Pair<Indexable, Persistable> model : models) {
+            perShard.get(shardOf(model.low)).add(model);
+        }
+
+        List<Boolean> results = onAllShards((position, shard) ->
+                perShard.get(position).isEmpty() || shard.saveBatch(perShard.get(position)));
+        return !results.contains(Boolean.FALSE);
+    }
+
+    @Override
+    public boolean delete(Class<?> model, Indexable index) throws Exception {
+        return shard(index).delete(model, index);
+    }
+
+    @Override
+    public Persistable get(Class<?> model, Indexable index) throws Exception {
+        return shard(index).get(model, index);
+    }
+
+    @Override
+    public List<Persistable> getAll(Class<?> model, List<? extends Indexable> indexes) throws Exception {
+        List<List<Indexable>> perShard = new ArrayList<>(shards.size());
+        List<List<Integer>> positions = new ArrayList<>(shards.size());
+        for (int i = 0; i < shards.size(); i++) {
+            perShard.add(new ArrayList<>());
+            positions.add(new ArrayList<>());
+        }
+        for (int i = 0; i < indexes.size(); i++) {
+            int shard = shardOf(indexes.get(i));
+            perShard.get(shard).add(indexes.get(i));
+            positions.get(shard).add(i);
+        }
+
+        List<List<Persistable>> results = onAllShards((position, shard) -> perShard.get(position).isEmpty()
+                ? Collections.<Persistable>emptyList()
+                : shard.getAll(model, perShard.get(position)));
+
+        Persistable[] models = new Persistable[indexes.size()];
+        for (int shard = 0; shard < shards.size(); shard++) {
+            List<Persistable> result = results.get(shard);
+            for (int i = 0; i < result.size(); i++) {
+                models[positions.get(shard).get(i)] = result.get(i);
+            }
+        }
+        List<Persistable> list = new ArrayList<>(models.length);
+        Collections.addAll(list, models);
+        return list;
+    }
+
+    @Override
+    public boolean mayExist(Class<?> model, Indexable index) {
+        return shard(index).mayExist(model, index);
+    }
+
+    @Override
+    public long count(Class<?> model) throws Exception {
+        long count = 0;
+        for (long shardCount : onAllShards((position, shard) -> shard.count(model))) {
+            count += shardCount;
+        }
+        return count;
+    }
+
+    /**
+     * @return The disk and memory usage of every shard, in shard order
+     * @throws Exception when the usage of a shard can't be measured
+     */
+    public List<StorageUsage> getStorageUsage() throws Exception {
+        return onAllShards((position, shard) -> shard.getStorageUsage());
+    }
+
+    /**
+     * Rebuilds the counts of all shards in parallel, see {@link RocksDBPersistenceProvider#rebuildCounts()}
+     *
+     * @throws Exception when a shard failed
+     */
+    public void rebuildCounts() throws Exception {
+        onAllShards((position, shard) -> shard.rebuildCounts());
+    }
+
+    /**
+     * Scans all shards in parallel and merges their results in order
+     */
+    @Override
+    public List<Pair<Indexable, Persistable>> scan(Class<?> model, Indexable from, int limit) throws Exception {
+        return merge(onAllShards((position, shard) -> shard.scan(model, from, limit)), limit);
+    }
+
+    /**
+     * Searches all shards in parallel, the prefix of a hash doesn't determine its shard unless it spans the
+     * leading bytes used by {@link #shardOf(Indexable)}
+     */
+    @Override
+    public List<Pair<Indexable, Persistable>> findByPrefix(Class<?> model, String trytePrefix, int limit)
+            throws Exception {
+        return merge(onAllShards((position, shard) -> shard.findByPrefix(model, trytePrefix, limit)), limit);
+    }
+
+    /**
+     * Merges ordered shard results into a single ordered result
+     */
+    private List<Pair<Indexable, Persistable>> merge(List<List<Pair<Indexable, Persistable>>> results, int limit) {
+        // Every entry is a position in a shard result, {shard, index}
+        PriorityQueue<int[]> heads = new PriorityQueue<>(shards.size(), (a, b) -> Bytes.compare(
+                results.get(a[0]).get(a[1]).low.bytes(), results.get(b[0]).get(b[1]).low.bytes()));
+        for (int shard = 0; shard < results.size(); shard++) {
+            if (!results.get(shard).isEmpty()) {
+                heads.add(new int[] {shard, 0});
+            }
+        }
+
+        List<Pair<Indexable, Persistable>> merged = new ArrayList<>(Math.min(limit, 1024));
+        while (!heads.isEmpty() && merged.size() < limit) {
+            int[] head = heads.poll();
+            List<Pair<Indexable, Persistable>> result = results.get(head[0]);
+            merged.add(result.get(head[1]));
+            if (++head[1] < result.size()) {
+                heads.add(head);
+            }
+        }
+        return merged;
+    }
+
+    @Override
+    public void clear(Class<?> column) throws Exception {
+        onAllShards((position, shard) -> {
+            shard.clear(column);
+            return null;
+        });
+    }
+
+    @Override
+    public void clearMetadata(Class<?> column) throws Exception {
+        onAllShards((position, shard) -> {
+            shard.clearMetadata(column);
+            return null;
+        });
+    }
+
+    /**
+     * @param tickerType The statistic
+     * @return The sum of the statistic over all shards
+     */
+    public long getTickerCount(TickerType tickerType) {
+        long total = 0;
+        for (RocksDBPersistenceProvider shard : shards) {
+            total += shard.getTickerCount(tickerType);
+        }
+        return total;
+    }
+
+    /**
+     * @param model The class of the column family
+     * @param property The name of an integer RocksDB property
+     * @return The sum of the property over all shards
+     * @throws RocksDBException when the property is unknown
+     */
+    public long getLongProperty(Class<?> model, String property) throws RocksDBException {
+        long total = 0;
+        for (RocksDBPersistenceProvider shard : shards) {
+            total += shard.getLongProperty(model, property);
+        }
+        return total;
+    }
+}
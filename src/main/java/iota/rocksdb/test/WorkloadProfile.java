@@ -0,0 +1,171 @@
+package iota.rocksdb.test;
+
+import java.util.Properties;
+
+import org.rocksdb.BlockBasedTableConfig;
+import org.rocksdb.IndexType;
+import org.rocksdb.util.SizeUnit;
+
+/**
+ * Named sets of RocksDB options for a kind of workload.
+ *
+ * <p>
+ *     DB and column family options are given as RocksDB option names, the same names as in a configuration file
+ *     or an OPTIONS file. Settings of a configuration file and overrides replace settings of the profile,
+ *     see {@link RocksDBPersistenceProvider#overrideDbOption(String, String)} and
+ *     {@link RocksDBPersistenceProvider#overrideColumnFamilyOption(String, String)}.
+ * </p>
+ */
+public enum WorkloadProfile {
+
+    /**
+     * RocksDB defaults with a bloom filter, existing column families keep the options they were created with
+     */
+    DEFAULT(0) {
+        @Override
+        boolean configureTable(BlockBasedTableConfig table) {
+            return false;
+        }
+    },
+
+    /**
+     * Loading large amounts of data. Large memtables and universal compaction write every byte as few times
+     * as possible, files are synced in large steps instead of often.
+     */
+    BULK_INGEST(64 * SizeUnit.MB) {
+        @Override
+        void dbOptions(Properties options) {
+            options.setProperty("max_background_jobs", Integer.toString(Math.max(4, CORES)));
+            options.setProperty("max_subcompactions", Integer.toString(Math.max(1, CORES / 2)));
+            options.setProperty("bytes_per_sync", Long.toString(8 * SizeUnit.MB));
+            options.setProperty("wal_bytes_per_sync", "0");
+            options.setProperty("use_fsync", "false");
+        }
+
+        @Override
+        void columnFamilyOptions(Properties options) {
+            options.setProperty("compaction_style", "kCompactionStyleUniversal");
+            options.setProperty("write_buffer_size", Long.toString(256 * SizeUnit.MB));
+            options.setProperty("max_write_buffer_number", "6");
+            options.setProperty("min_write_buffer_number_to_merge", "2");
+            options.setProperty("level0_file_num_compaction_trigger", "8");
+            options.setProperty("level0_slowdown_writes_trigger", "48");
+            options.setProperty("level0_stop_writes_trigger", "64");
+            options.setProperty("target_file_size_base", Long.toString(256 * SizeUnit.MB));
+        }
+
+        @Override
+        boolean configureTable(BlockBasedTableConfig table) {
+            table.setBlockSize(16 * SizeUnit.KB);
+            return true;
+        }
+    },
+
+    /**
+     * Serving many point reads. Levelled compaction keeps few files per key, partitioned filters and indexes are
+     * cached with their top level pinned, and compaction bypasses the page cache so it doesn't evict hot blocks.
+     */
+    READ_SERVING(512 * SizeUnit.MB) {
+        @Override
+        void dbOptions(Properties options) {
+            options.setProperty("max_open_files", "-1");
+            options.setProperty("use_direct_io_for_flush_and_compaction", "true");
+            options.setProperty("compaction_readahead_size", Long.toString(2 * SizeUnit.MB));
+            options.setProperty("max_background_jobs", Integer.toString(Math.max(2, CORES / 2)));
+        }
+
+        @Override
+        void columnFamilyOptions(Properties options) {
+            options.setProperty("compaction_style", "kCompactionStyleLevel");
+            options.setProperty("level_compaction_dynamic_level_bytes", "true");
+            options.setProperty("write_buffer_size", Long.toString(64 * SizeUnit.MB));
+        }
+
+        @Override
+        boolean configureTable(BlockBasedTableConfig table) {
+            table.setIndexType(IndexType.kTwoLevelIndexSearch)
+                    .setPartitionFilters(true)
+                    .setMetadataBlockSize(4 * SizeUnit.KB)
+                    .setCacheIndexAndFilterBlocks(true)
+                    .setCacheIndexAndFilterBlocksWithHighPriority(true)
+                    .setPinTopLevelIndexAndFilter(true)
+                    .setPinL0FilterAndIndexBlocksInCache(true);
+            return true;
+        }
+    },
+
+    /**
+     * Small machines. Small memtables, few open files and background jobs, indexes and filters are kept
+     * in the block cache so they count against its limit.
+     */
+    LOW_MEMORY(8 * SizeUnit.MB) {
+        @Override
+        void dbOptions(Properties options) {
+            options.setProperty("max_open_files", "256");
+            options.setProperty("max_background_jobs", "2");
+            options.setProperty("db_write_buffer_size", Long.toString(32 * SizeUnit.MB));
+            options.setProperty("keep_log_file_num", "2");
+        }
+
+        @Override
+        void columnFamilyOptions(Properties options) {
+            options.setProperty("write_buffer_size", Long.toString(8 * SizeUnit.MB));
+            options.setProperty("max_write_buffer_number", "2");
+            options.setProperty("target_file_size_base", Long.toString(16 * SizeUnit.MB));
+        }
+
+        @Override
+        boolean configureTable(BlockBasedTableConfig table) {
+            table.setBlockSize(4 * SizeUnit.KB)
+                    .setCacheIndexAndFilterBlocks(true);
+            return true;
+        }
+    };
+
+    private static final int CORES = Runtime.getRuntime().availableProcessors();
+
+    private final long blockCacheSize;
+
+    WorkloadProfile(long blockCacheSize) {
+        this.blockCacheSize = blockCacheSize;
+    }
+
+    /**
+     * @return The DB options of this profile
+     */
+    public Properties getDbOptions() {
+        Properties options = new Properties();
+        dbOptions(options);
+        return options;
+    }
+
+    /**
+     * @return The column family options of this profile
+     */
+    public Properties getColumnFamilyOptions() {
+        Properties options = new Properties();
+        columnFamilyOptions(options);
+        return options;
+    }
+
+    /**
+     * @return The block cache size used when the provider has no cache size, in bytes
+     */
+    public long getBlockCacheSize() {
+        return blockCacheSize;
+    }
+
+    void dbOptions(Properties options) {
+    }
+
+    void columnFamilyOptions(Properties options) {
+    }
+
+    /**
+     * Sets the table options of this profile. The block cache and bloom filter are set by the provider.
+     *
+     * @param table The table options to change
+     * @return <code>false</code> when this profile uses the RocksDB default table
+     */
+    abstract boolean configureTable(BlockBasedTableConfig table);
+}
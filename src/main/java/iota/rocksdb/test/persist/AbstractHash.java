@@ -1,25 +1,32 @@
 package iota.rocksdb.test.persist;
 
 import java.io.Serializable;
-import java.util.Arrays;
 import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 
 import iota.rocksdb.crypto.Curl;
-import iota.rocksdb.test.Transaction;
-import iota.rocksdb.test.persist.save.ByteSafe;
-import iota.rocksdb.test.persist.save.TritSafe;
+import iota.rocksdb.test.util.Bytes;
 import iota.rocksdb.test.util.Converter;
 
 /**
- * Base implementation of a hash object
+ * Base implementation of a hash object.
+ *
+ * <p>
+ *     A hash only keeps its {@value #SIZE_IN_BYTES} bytes. Trits are calculated from the bytes when requested,
+ *     and not retained.
+ * </p>
  */
 public abstract class AbstractHash implements Hash, Serializable {
-    private final Object lock = new Object();
+    private static final long serialVersionUID = 1L;
 
-    private ByteSafe byteSafe;
-    private TritSafe tritSafe;
+    private static final AtomicReferenceFieldUpdater<AbstractHash, byte[]> BYTES =
+            AtomicReferenceFieldUpdater.newUpdater(AbstractHash.class, byte[].class, "bytes");
+
+    /**
+     * Exactly {@value #SIZE_IN_BYTES} long, or <code>null</code> until {@link #read(byte[])} is called
+     */
+    private volatile byte[] bytes;
 
-    
     /**
      * Empty Constructor for a placeholder hash identifier object. Creates a hash identifier object with no properties.
      */
@@ -27,93 +34,63 @@ public abstract class AbstractHash implements Hash, Serializable {
     }
 
     /**
-     * Constructor for a hash object using a trit or byte source array. A null safe byte array of the
-     * same size as the source will be created, storing a copy of the input values in the object.
+     * Constructor for a hash object using a trit or byte source array. Trits are converted to bytes,
+     * bytes are copied. The resulting object stores only the bytes.
      *
      * @param source A byte array containing the source transaction information in either trit or byte format
      * @param sourceOffset The offset defining the start point for the hash object in the source
      * @param sourceSize The size of the hash object that will be created
      */
     public AbstractHash(byte[] source, int sourceOffset, int sourceSize) {
+        byte[] dest = new byte[SIZE_IN_BYTES];
         if(sourceSize < SIZE_IN_TRITS) {
-            byte[] dest = new byte[SIZE_IN_BYTES];
             System.arraycopy(source, sourceOffset, dest, 0, Math.min(dest.length, Math.min(source.length, sourceSize)));
-            this.byteSafe = new ByteSafe(dest);
         } else {
-            byte[] dest = new byte[SIZE_IN_TRITS];
-            System.arraycopy(source, sourceOffset, dest, 0, dest.length);
-            this.tritSafe = new TritSafe(dest);
+            Converter.bytes(source, sourceOffset, dest, 0, SIZE_IN_TRITS);
         }
+        this.bytes = dest;
     }
 
     /**
      * Assigns the input byte data to the hash object. Each hash object can only be initialized with data
-     * once.If the byte or trit arrays are not null, an <tt>IllegalStateException</tt> is thrown.
+     * once. If the bytes are already set, an <tt>IllegalStateException</tt> is thrown, also when another thread
+     * sets them at the same time.
      *
      * @param bytes A byte array containing the source bytes
      */
     @Override
     public void read(byte[] bytes) {
         if (bytes != null) {
-            synchronized (lock) {
-                if (byteSafe != null || tritSafe != null) {
-                    throw new IllegalStateException("I cannot be initialized with data twice.");
-                }
-                byte[] dest = new byte[SIZE_IN_BYTES];
-                System.arraycopy(bytes, 0, dest, 0, Math.min(dest.length, bytes.length));
-                byteSafe = new ByteSafe(dest);
+            byte[] dest = new byte[SIZE_IN_BYTES];
+            System.arraycopy(bytes, 0, dest, 0, Math.min(dest.length, bytes.length));
+            if (!BYTES.compareAndSet(this, null, dest)) {
+                throw new IllegalStateException("I cannot be initialized with data twice.");
             }
         }
     }
 
     /**
-     * Checks if the hash object is storing a byte array. If the object's byte array is <tt>null</tt>,
-     * then a byte array conversion of the object's trit array will be created and stored. If there
-     * is no trit array present, a <tt>NullPointerException</tt> will be thrown.
+     * Returns the bytes of this hash. The array is not copied and must not be modified.
+     * If the hash has no data, a <tt>NullPointerException</tt> will be thrown.
      *
      * @return The stored byte array containing the hash values
      */
     @Override
     public byte[] bytes() {
-        ByteSafe safe = byteSafe;
-        if (safe == null) {
-            synchronized (lock) {
-                if (byteSafe == null) {
-                    Objects.requireNonNull(tritSafe, "I need my trits to be initialized in order to construct bytes.");
-                    byte[] src = trits();
-                    byte[] dest = new byte[SIZE_IN_BYTES];
-                    Converter.bytes(src, 0, dest, 0, src.length);
-                    byteSafe = new ByteSafe(dest);
-                }
-                safe = byteSafe;
-            }
-        }
-        return safe.getData();
+        return Objects.requireNonNull(bytes, "I need my bytes to be initialized.");
     }
 
     /**
-     * Checks if the hash object is storing a trit array. If the object's trit array is <tt>null</tt>,
-     * then a trit array conversion of the object's byte array will be created. If there is no byte
-     * array present, a <tt>NullPointerException</tt> will be thrown.
+     * Calculates the trits of this hash from its bytes. Every call returns a new array.
+     * If the hash has no data, a <tt>NullPointerException</tt> will be thrown.
      *
-     * @return The stored trit array containing the hash values
+     * @return A trit array containing the hash values
      */
     @Override
     public byte[] trits() {
-        TritSafe safe = tritSafe;
-        if (safe == null) {
-            synchronized (lock) {
-                if (tritSafe == null) {
-                    Objects.requireNonNull(byteSafe, "I need my bytes to be initialized in order to construct trits.");
-                    byte[] src = bytes();
-                    byte[] dest = new byte[Curl.HASH_LENGTH];
-                    Converter.getTrits(src, dest);
-                    tritSafe = new TritSafe(dest);
-                }
-                safe = tritSafe;
-            }
-        }
-        return safe.getData();
+        byte[] trits = new byte[Curl.HASH_LENGTH];
+        Converter.getTrits(bytes(), 0, trits, 0, SIZE_IN_TRITS);
+        return trits;
     }
 
     /**
@@ -121,13 +98,7 @@ public abstract class AbstractHash implements Hash, Serializable {
      */
     @Override
     public int trailingZeros() {
-        byte[] trits = trits();
-        int index = SIZE_IN_TRITS;
-        int zeros = 0;
-        while (index-- > 0 && trits[index] == 0) {
-            zeros++;
-        }
-        return zeros;
+        return Converter.trailingZeros(bytes(), 0, SIZE_IN_TRITS);
     }
 
     @Override
@@ -140,15 +111,17 @@ public abstract class AbstractHash implements Hash, Serializable {
         return null;
     }
 
+    /**
+     * Hashes are uniformly distributed, so their first bytes are used as hash code.
+     */
     @Override
     public int hashCode() {
-        bytes();
-        return byteSafe.getHashcode();
+        return Bytes.firstInt(bytes());
     }
 
     @Override
     public String toString() {
-        return Converter.trytes(trits());
+        return Converter.trytesFromBytes(bytes(), 0, SIZE_IN_TRYTES);
     }
 
     @Override
@@ -160,19 +133,14 @@ public abstract class AbstractHash implements Hash, Serializable {
             return false;
         }
         Hash hash = (Hash) obj;
-        return Arrays.equals(bytes(), hash.bytes());
+        return Bytes.equals(bytes(), 0, hash.bytes(), 0, SIZE_IN_BYTES);
     }
 
+    /**
+     * Compares the bytes of both indexables as unsigned bytes, which is the order RocksDB stores keys in.
+     */
     @Override
     public int compareTo(Indexable indexable) {
-        Hash hash = (indexable instanceof Hash) ? (Hash) indexable : HashFactory.GENERIC.create(Transaction.class, indexable.bytes());
-        if (this.equals(hash)) {
-            return 0;
-        }
-        long diff = Converter.longValue(hash.trits(), 0, SIZE_IN_TRITS) - Converter.longValue(trits(), 0, SIZE_IN_TRITS);
-        if (Math.abs(diff) > Integer.MAX_VALUE) {
-            return diff > 0L ? Integer.MAX_VALUE : Integer.MIN_VALUE + 1;
-        }
-        return (int) diff;
+        return Bytes.compare(bytes(), indexable.bytes());
     }
 }
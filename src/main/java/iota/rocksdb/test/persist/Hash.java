@@ -24,6 +24,11 @@ public interface Hash extends Indexable, HashId {
      */
     int SIZE_IN_BYTES = 49;
 
+    /**
+     * The size of a hash as a tryte string
+     */
+    int SIZE_IN_TRYTES = 81;
+
     /**
      * The data of this hash in trits
      * @return the trits
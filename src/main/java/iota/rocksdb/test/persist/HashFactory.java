@@ -1,5 +1,8 @@
 package iota.rocksdb.test.persist;
 
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -27,6 +30,16 @@ public enum HashFactory {
 	GENERIC;
     
     private static final Logger log = LoggerFactory.getLogger(HashFactory.class);
+
+    /**
+     * Pool of hashes returned by this factory, <code>null</code> when interning is disabled
+     */
+    private static volatile HashPool pool;
+
+    /**
+     * Model classes without a hash type of their own, only warned about once as they are usually read in bulk
+     */
+    private static final Set<Class<?>> unknownClasses = ConcurrentHashMap.newKeySet();
     
     private Class<? extends Persistable> clazz;
 
@@ -37,6 +50,26 @@ public enum HashFactory {
     HashFactory() {
         
     }
+
+    /**
+     * Makes every factory return pooled instances for hashes that were recently created.
+     * Equal hashes read repeatedly, like the trunk, branch and bundle of transactions, then share one instance.
+     *
+     * @param capacity The amount of hashes the pool holds
+     * @return The pool, to read its statistics
+     */
+    public static HashPool enableInterning(int capacity) {
+        HashPool hashPool = new HashPool(capacity);
+        pool = hashPool;
+        return hashPool;
+    }
+
+    /**
+     * Stops interning hashes, every created hash is a new instance again.
+     */
+    public static void disableInterning() {
+        pool = null;
+    }
     
     /**
      * Creates a Hash using the provided trytes
@@ -44,9 +77,12 @@ public enum HashFactory {
      * @return The hash
      */
     public Hash create(String trytes) {
-        byte[] trits = new byte[Hash.SIZE_IN_TRITS];
-        Converter.trits(trytes, trits, 0);
-        return create(clazz, trits, 0, Hash.SIZE_IN_TRITS);
+        if (trytes.length() > Hash.SIZE_IN_TRYTES) {
+            throw new IllegalArgumentException("Hash trytes are too long: " + trytes.length());
+        }
+        byte[] bytes = new byte[Hash.SIZE_IN_BYTES];
+        Converter.bytesFromTrytes(trytes, bytes, 0);
+        return create(clazz, bytes, 0, Hash.SIZE_IN_BYTES);
     }
 
     /**
@@ -101,14 +137,19 @@ public enum HashFactory {
      * @return The hash of the correct type
      */
     public Hash create(Class<?> modelClass, byte[] source, int sourceOffset, int sourceSize) {
-        
+        Hash hash;
         //Transaction is first since its the most used
         if (modelClass.equals(Transaction.class)) {
-            return new TransactionHash(source, sourceOffset, sourceSize);
+            hash = new TransactionHash(source, sourceOffset, sourceSize);
         } else {
-            log.warn("Tried to construct hash from unknown class " + modelClass);
+            if (unknownClasses.add(modelClass)) {
+                log.warn("Tried to construct hash from unknown class " + modelClass);
+            }
             //Default to transaction hash or NULL_HASH?
-            return new TransactionHash(source, sourceOffset, sourceSize);
+            hash = new TransactionHash(source, sourceOffset, sourceSize);
         }
+
+        HashPool hashPool = pool;
+        return hashPool == null ? hash : hashPool.intern(hash);
     }
 }
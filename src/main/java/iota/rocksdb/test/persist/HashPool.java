@@ -0,0 +1,79 @@
+package iota.rocksdb.test.persist;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded pool of hash instances, so that equal hashes which are created often can share one instance.
+ *
+ * <p>
+ *     The pool is a lock-free, direct-mapped cache: every hash has exactly one slot, chosen by its hash code.
+ *     A hash that maps to an occupied slot replaces the previous one, so recently used hashes stay in the pool
+ *     and memory use never grows beyond the capacity.
+ * </p>
+ *
+ * @see HashFactory#enableInterning(int)
+ */
+public class HashPool {
+
+    private final AtomicReferenceArray<Hash> slots;
+    private final int mask;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * @param capacity The amount of hashes the pool can hold, rounded up to a power of two
+     */
+    public HashPool(int capacity) {
+        if (capacity <= 0 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("Invalid pool capacity: " + capacity);
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size <<= 1;
+        }
+        slots = new AtomicReferenceArray<>(size);
+        mask = size - 1;
+    }
+
+    /**
+     * Returns the pooled instance equal to {@code hash}, or adds {@code hash} to the pool if there is none.
+     *
+     * @param hash The hash to intern
+     * @return An equal hash, which is the same instance for all callers as long as it stays in the pool
+     */
+    public Hash intern(Hash hash) {
+        int code = hash.hashCode();
+        int index = (code ^ (code >>> 16)) & mask;
+        Hash pooled = slots.get(index);
+        if (pooled != null && pooled.equals(hash)) {
+            hits.increment();
+            return pooled;
+        }
+        misses.increment();
+        slots.lazySet(index, hash);
+        return hash;
+    }
+
+    /**
+     * @return The amount of hashes the pool can hold
+     */
+    public int capacity() {
+        return slots.length();
+    }
+
+    /**
+     * @return The amount of calls to {@link #intern(Hash)} which returned a pooled instance
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return The amount of calls to {@link #intern(Hash)} which added the hash to the pool
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+}
@@ -1,8 +1,10 @@
 package iota.rocksdb.test.persist;
 
+import iota.rocksdb.crypto.Curl;
 import iota.rocksdb.crypto.Sponge;
 import iota.rocksdb.crypto.SpongeFactory;
 import iota.rocksdb.test.util.Converter;
+import iota.rocksdb.test.util.Pair;
 
 /**
  * Creates a <tt>Transaction</tt> Hash identifier.
@@ -59,4 +61,49 @@ public class TransactionHash extends AbstractHash {
         sponge.squeeze(hashTrits, 0, SIZE_IN_TRITS);
         return (TransactionHash) HashFactory.TRANSACTION.create(hashTrits, 0, SIZE_IN_TRITS);
     }
+
+    /**
+     * Calculates the transaction hash identifiers of many trit arrays at once, using {@link SpongeFactory.Mode#BCURLT}.
+     * Uses the entire trits arrays, which must all be of equal length.
+     * @param trits Arrays of trits we calculate the hashes with
+     * @return The {@link TransactionHash} of every array, in the same order
+     */
+    public static TransactionHash[] calculate(byte[][] trits) {
+        return calculate(trits, 0, trits.length == 0 ? 0 : trits[0].length,
+                (Curl) SpongeFactory.create(SpongeFactory.Mode.BCURLT));
+    }
+
+    /**
+     * Calculates the transaction hash identifiers of many trit arrays at once.
+     * Every transform of the pair curl hashes {@value Curl#BATCH_SIZE} arrays.
+     * @param tritsToCalculate arrays of trits we calculate the hashes with
+     * @param offset The position we start reading from inside every array
+     * @param length The length of trits we hash from every array
+     * @param curl A pair Curl, created with {@link SpongeFactory.Mode#BCURLT}
+     * @return The {@link TransactionHash} of every array, in the same order
+     */
+    public static TransactionHash[] calculate(byte[][] tritsToCalculate, int offset, int length, Curl curl) {
+        if (!curl.isPair()) {
+            throw new IllegalArgumentException("Batch hashing requires a pair Curl");
+        }
+        TransactionHash[] hashes = new TransactionHash[tritsToCalculate.length];
+        Pair<long[], long[]> input = new Pair<>(new long[length], new long[length]);
+        Pair<long[], long[]> output = new Pair<>(new long[SIZE_IN_TRITS], new long[SIZE_IN_TRITS]);
+        byte[][] batch = new byte[Curl.BATCH_SIZE][];
+        byte[] hashTrits = new byte[SIZE_IN_TRITS];
+        for (int start = 0; start < tritsToCalculate.length; start += Curl.BATCH_SIZE) {
+            int count = Math.min(Curl.BATCH_SIZE, tritsToCalculate.length - start);
+            System.arraycopy(tritsToCalculate, start, batch, 0, count);
+            Converter.longPair(batch, count, offset, input, length);
+
+            curl.reset();
+            curl.absorb(input, 0, length);
+            curl.squeeze(output, 0, SIZE_IN_TRITS);
+            for (int i = 0; i < count; i++) {
+                Converter.trits(output, i, hashTrits, 0, SIZE_IN_TRITS);
+                hashes[start + i] = (TransactionHash) HashFactory.TRANSACTION.create(hashTrits, 0, SIZE_IN_TRITS);
+            }
+        }
+        return hashes;
+    }
 }
@@ -0,0 +1,31 @@
+package iota.rocksdb.test.pipeline;
+
+import iota.rocksdb.test.Transaction;
+import iota.rocksdb.test.persist.Hash;
+
+/**
+ * A transaction on its way through the pipeline. Every stage adds the result of its work.
+ */
+class IngestItem {
+
+    /**
+     * Marks the end of the input, passed on by the last worker of every stage
+     */
+    static final IngestItem POISON = new IngestItem(-1, null);
+
+    final long sequence;
+    final byte[] bytes;
+
+    Hash hash;
+    Transaction transaction;
+
+    /**
+     * The stage which rejected this item, <code>null</code> while it is accepted
+     */
+    IngestStage rejectedBy;
+
+    IngestItem(long sequence, byte[] bytes) {
+        this.sequence = sequence;
+        this.bytes = bytes;
+    }
+}
@@ -0,0 +1,247 @@
+package iota.rocksdb.test.pipeline;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import iota.rocksdb.test.PersistenceProvider;
+import iota.rocksdb.test.Transaction;
+import iota.rocksdb.test.persist.Hash;
+import iota.rocksdb.test.service.TransactionHashService;
+import iota.rocksdb.test.util.Converter;
+import iota.rocksdb.test.util.TransactionTestUtils;
+import iota.rocksdb.test.util.offheap.OffHeapHashSet;
+
+/**
+ * Stores raw transactions through a chain of stages: hash, validate, deduplicate, parse and persist.
+ *
+ * <p>
+ *     Every stage runs on its own threads and is connected to the next stage by a bounded queue.
+ *     When a stage falls behind its queue fills up, which blocks the stage in front of it
+ *     and eventually {@link #submit(byte[])}, so memory use stays bounded under any load.
+ * </p>
+ * <p>
+ *     Duplicates are filtered with an off-heap set of all hashes seen by this pipeline,
+ *     transactions which are already stored are filtered through the database. A hash is taken out of the set again
+ *     when its transaction fails to be stored, so submitting it again stores it.
+ * </p>
+ */
+public class IngestPipeline implements AutoCloseable {
+
+    private final PersistenceProvider provider;
+    private final IngestPipelineConfig config;
+
+    private final TransactionHashService hashService;
+    private final OffHeapHashSet seen;
+    private final ThreadLocal<byte[]> trits = ThreadLocal.withInitial(
+            () -> new byte[TransactionTestUtils.TRINARY_SIZE]);
+
+    private final Map<IngestStage, BlockingQueue<IngestItem>> queues = new EnumMap<>(IngestStage.class);
+    private final Map<IngestStage, StageMetrics> metrics = new EnumMap<>(IngestStage.class);
+    private final List<StageRunner> runners = new ArrayList<>();
+    private final PersistStage persistStage;
+
+    private final AtomicLong sequence = new AtomicLong();
+    private volatile boolean closed = false;
+
+    /**
+     * Submitters hold the read lock from their check until their transaction is queued, closing holds the write lock
+     * while it queues the end of the input. So no transaction is queued after the end, where it would be lost.
+     */
+    private final ReadWriteLock closeLock = new ReentrantReadWriteLock();
+
+    /**
+     * Creates and starts a pipeline.
+     *
+     * @param provider The provider transactions are stored in, must be initialized
+     * @param config The settings of this pipeline
+     */
+    public IngestPipeline(PersistenceProvider provider, IngestPipelineConfig config) {
+        this.provider = provider;
+        this.config = config;
+        this.hashService = new TransactionHashService(config.getMode(), ForkJoinPool.commonPool());
+        this.seen = new OffHeapHashSet(config.getExpectedTransactions());
+
+        for (IngestStage stage : IngestStage.values()) {
+            BlockingQueue<IngestItem> queue = new ArrayBlockingQueue<>(config.getQueueCapacity());
+            queues.put(stage, queue);
+            metrics.put(stage, new StageMetrics(stage, queue));
+        }
+
+        addStage(IngestStage.HASH, IngestStage.VALIDATE, this::hash);
+        addStage(IngestStage.VALIDATE, IngestStage.DEDUPLICATE, this::validate);
+        addStage(IngestStage.DEDUPLICATE, IngestStage.PARSE, this::deduplicate);
+        addStage(IngestStage.PARSE, IngestStage.PERSIST, this::parse);
+        persistStage = new PersistStage(provider, queues.get(IngestStage.PERSIST),
+                metrics.get(IngestStage.PERSIST), config, this::forget);
+
+        runners.forEach(StageRunner::start);
+        persistStage.start();
+    }
+
+    private void addStage(IngestStage stage, IngestStage next, StageRunner.Processor processor) {
+        runners.add(new StageRunner(stage, config.getParallelism(stage), queues.get(stage), queues.get(next),
+                processor, metrics.get(stage), config.isPreserveOrder()));
+    }
+
+    /**
+     * Adds a transaction to the pipeline, waiting while the pipeline is full.
+     *
+     * @param transaction The transaction bytes, {@link Transaction#SIZE} long
+     * @throws InterruptedException when interrupted while waiting
+     */
+    public void submit(byte[] transaction) throws InterruptedException {
+        closeLock.readLock().lock();
+        try {
+            checkOpen(transaction);
+            queues.get(IngestStage.HASH).put(new IngestItem(sequence.getAndIncrement(), transaction));
+        } finally {
+            closeLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Adds a transaction to the pipeline, waiting up to the timeout while the pipeline is full.
+     * Only meaningful when the order is not preserved, a preserved order needs every sequence number.
+     *
+     * @param transaction The transaction bytes, {@link Transaction#SIZE} long
+     * @param timeout How long to wait
+     * @param unit The unit of the timeout
+     * @return <code>true</code> when the transaction was added, <code>false</code> when the pipeline stayed full
+     * @throws InterruptedException when interrupted while waiting
+     */
+    public boolean offer(byte[] transaction, long timeout, TimeUnit unit) throws InterruptedException {
+        if (config.isPreserveOrder()) {
+            throw new IllegalStateException("Can't skip transactions when the order is preserved, use submit");
+        }
+        closeLock.readLock().lock();
+        try {
+            checkOpen(transaction);
+            return queues.get(IngestStage.HASH).offer(new IngestItem(sequence.getAndIncrement(), transaction),
+                    timeout, unit);
+        } finally {
+            closeLock.readLock().unlock();
+        }
+    }
+
+    private void checkOpen(byte[] transaction) {
+        if (closed) {
+            throw new IllegalStateException("Pipeline is closed");
+        }
+        if (transaction.length != Transaction.SIZE) {
+            throw new IllegalArgumentException("Transaction must be " + Transaction.SIZE + " bytes long");
+        }
+    }
+
+    /**
+     * @return The metrics of every stage, in pipeline order
+     */
+    public List<StageMetrics> getMetrics() {
+        return Collections.unmodifiableList(new ArrayList<>(metrics.values()));
+    }
+
+    /**
+     * @param stage The stage
+     * @return The metrics of that stage
+     */
+    public StageMetrics getMetrics(IngestStage stage) {
+        return metrics.get(stage);
+    }
+
+    /**
+     * Stops accepting transactions and waits until all submitted transactions went through the pipeline.
+     * Submitters which are waiting for room in the pipeline are waited for too, later submitters are rejected.
+     * The stages use off-heap memory which is freed here, so an interrupt doesn't stop the wait.
+     * The interrupt status is set again before returning.
+     */
+    @Override
+    public void close() {
+        boolean interrupted = false;
+        closeLock.writeLock().lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            while (true) {
+                try {
+                    queues.get(IngestStage.HASH).put(IngestItem.POISON);
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        } finally {
+            closeLock.writeLock().unlock();
+        }
+
+        while (true) {
+            try {
+                for (StageRunner runner : runners) {
+                    runner.join();
+                }
+                persistStage.join();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+
+        seen.close();
+        hashService.close();
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private boolean hash(IngestItem item) {
+        item.hash = hashService.hash(item.bytes);
+        return true;
+    }
+
+    private boolean validate(IngestItem item) {
+        return item.hash.trailingZeros() >= config.getMinWeightMagnitude();
+    }
+
+    private boolean deduplicate(IngestItem item) throws Exception {
+        // Added before the lookup, so a duplicate which is still on its way to the database is rejected too
+        if (!seen.add(item.hash)) {
+            return false;
+        }
+        try {
+            return !provider.mayExist(Transaction.class, item.hash)
+                    || !provider.get(Transaction.class, item.hash).exists();
+        } catch (Exception e) {
+            forget(item);
+            throw e;
+        }
+    }
+
+    private boolean parse(IngestItem item) {
+        byte[] buffer = trits.get();
+        Converter.getTrits(item.bytes, buffer);
+        try {
+            item.transaction = TransactionParser.parse(item.bytes, buffer);
+        } catch (RuntimeException e) {
+            forget(item);
+            throw e;
+        }
+        return true;
+    }
+
+    /**
+     * Takes a deduplicated transaction which won't be stored out of the seen hashes
+     */
+    private void forget(IngestItem item) {
+        seen.remove(item.hash);
+    }
+}
@@ -0,0 +1,137 @@
+package iota.rocksdb.test.pipeline;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+import iota.rocksdb.crypto.SpongeFactory;
+
+/**
+ * Settings of an {@link IngestPipeline}. All setters return this config so they can be chained.
+ */
+public class IngestPipelineConfig {
+
+    private final Map<IngestStage, Integer> parallelism = new EnumMap<>(IngestStage.class);
+
+    private int queueCapacity = 1024;
+    private int batchSize = 256;
+    private int minWeightMagnitude = 14;
+    private boolean preserveOrder = true;
+    private long expectedTransactions = 1 << 20;
+    private SpongeFactory.Mode mode = SpongeFactory.Mode.CURLP81;
+
+    public IngestPipelineConfig() {
+        int cores = Runtime.getRuntime().availableProcessors();
+        parallelism.put(IngestStage.HASH, cores);
+        parallelism.put(IngestStage.VALIDATE, 1);
+        parallelism.put(IngestStage.DEDUPLICATE, 1);
+        parallelism.put(IngestStage.PARSE, Math.max(1, cores / 2));
+        parallelism.put(IngestStage.PERSIST, 1);
+    }
+
+    /**
+     * Sets the amount of worker threads of a stage.
+     * The persist stage always uses a single thread when the order is preserved.
+     *
+     * @param stage The stage
+     * @param threads The amount of threads, at least 1
+     * @return this config
+     */
+    public IngestPipelineConfig setParallelism(IngestStage stage, int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("A stage needs at least one thread: " + threads);
+        }
+        parallelism.put(stage, threads);
+        return this;
+    }
+
+    public int getParallelism(IngestStage stage) {
+        if (stage == IngestStage.PERSIST && preserveOrder) {
+            return 1;
+        }
+        return parallelism.get(stage);
+    }
+
+    /**
+     * @param queueCapacity The amount of transactions waiting in front of every stage before the previous stage blocks
+     * @return this config
+     */
+    public IngestPipelineConfig setQueueCapacity(int queueCapacity) {
+        if (queueCapacity < 1) {
+            throw new IllegalArgumentException("Queue capacity must be positive: " + queueCapacity);
+        }
+        this.queueCapacity = queueCapacity;
+        return this;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    /**
+     * @param batchSize The maximum amount of transactions saved in a single write
+     * @return this config
+     */
+    public IngestPipelineConfig setBatchSize(int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be positive: " + batchSize);
+        }
+        this.batchSize = batchSize;
+        return this;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * @param minWeightMagnitude The amount of trailing zero trits a transaction hash needs
+     * @return this config
+     */
+    public IngestPipelineConfig setMinWeightMagnitude(int minWeightMagnitude) {
+        this.minWeightMagnitude = minWeightMagnitude;
+        return this;
+    }
+
+    public int getMinWeightMagnitude() {
+        return minWeightMagnitude;
+    }
+
+    /**
+     * @param preserveOrder <code>true</code> to save transactions in the order they were submitted
+     * @return this config
+     */
+    public IngestPipelineConfig setPreserveOrder(boolean preserveOrder) {
+        this.preserveOrder = preserveOrder;
+        return this;
+    }
+
+    public boolean isPreserveOrder() {
+        return preserveOrder;
+    }
+
+    /**
+     * @param expectedTransactions The amount of transactions the duplicate filter is sized for
+     * @return this config
+     */
+    public IngestPipelineConfig setExpectedTransactions(long expectedTransactions) {
+        this.expectedTransactions = expectedTransactions;
+        return this;
+    }
+
+    public long getExpectedTransactions() {
+        return expectedTransactions;
+    }
+
+    /**
+     * @param mode The sponge used to hash transactions
+     * @return this config
+     */
+    public IngestPipelineConfig setMode(SpongeFactory.Mode mode) {
+        this.mode = mode;
+        return this;
+    }
+
+    public SpongeFactory.Mode getMode() {
+        return mode;
+    }
+}
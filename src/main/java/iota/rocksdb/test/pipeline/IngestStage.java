@@ -0,0 +1,31 @@
+package iota.rocksdb.test.pipeline;
+
+/**
+ * The stages a transaction passes through in the {@link IngestPipeline}, in order.
+ */
+public enum IngestStage {
+    /**
+     * Calculates the transaction hash from the raw bytes
+     */
+    HASH,
+
+    /**
+     * Rejects transactions whose hash has less trailing zeros than the minimum weight magnitude
+     */
+    VALIDATE,
+
+    /**
+     * Rejects transactions which were already ingested or are already stored
+     */
+    DEDUPLICATE,
+
+    /**
+     * Parses the transaction fields from its trits
+     */
+    PARSE,
+
+    /**
+     * Saves transactions in batches
+     */
+    PERSIST
+}
@@ -0,0 +1,150 @@
+package iota.rocksdb.test.pipeline;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import iota.rocksdb.test.PersistenceProvider;
+import iota.rocksdb.test.persist.Indexable;
+import iota.rocksdb.test.persist.Persistable;
+import iota.rocksdb.test.util.Pair;
+
+/**
+ * The last stage of the pipeline, saves transactions in batches.
+ *
+ * <p>
+ *     When the order is preserved there is a single worker which holds back transactions until all transactions
+ *     submitted before them have arrived. Rejected transactions are still passed to this stage in that case,
+ *     so a gap in the order is never waited on forever.
+ * </p>
+ */
+class PersistStage {
+
+    private static final Logger log = LoggerFactory.getLogger(PersistStage.class);
+
+    private final PersistenceProvider provider;
+    private final BlockingQueue<IngestItem> input;
+    private final StageMetrics metrics;
+    private final int batchSize;
+    private final boolean preserveOrder;
+    private final Consumer<IngestItem> onFailure;
+
+    private final List<Thread> workers = new ArrayList<>();
+    private final AtomicInteger running;
+
+    /**
+     * Only used when the order is preserved, by the single worker
+     */
+    private final TreeMap<Long, IngestItem> pending = new TreeMap<>();
+    private long nextSequence = 0;
+
+    /**
+     * @param onFailure Called for every transaction of a batch which failed to be saved
+     */
+    PersistStage(PersistenceProvider provider, BlockingQueue<IngestItem> input, StageMetrics metrics,
+            IngestPipelineConfig config, Consumer<IngestItem> onFailure) {
+        this.provider = provider;
+        this.input = input;
+        this.metrics = metrics;
+        this.batchSize = config.getBatchSize();
+        this.preserveOrder = config.isPreserveOrder();
+        this.onFailure = onFailure;
+
+        int parallelism = config.getParallelism(IngestStage.PERSIST);
+        this.running = new AtomicInteger(parallelism);
+        for (int i = 0; i < parallelism; i++) {
+            Thread worker = new Thread(this::run, "ingest-persist-" + i);
+            worker.setDaemon(true);
+            workers.add(worker);
+        }
+    }
+
+    void start() {
+        workers.forEach(Thread::start);
+    }
+
+    void join() throws InterruptedException {
+        for (Thread worker : workers) {
+            worker.join();
+        }
+    }
+
+    private void run() {
+        List<IngestItem> drained = new ArrayList<>(batchSize);
+        List<IngestItem> batch = new ArrayList<>(batchSize);
+        try {
+            boolean stop = false;
+            while (!stop) {
+                drained.add(input.take());
+                input.drainTo(drained, batchSize - 1);
+
+                for (IngestItem item : drained) {
+                    if (item == IngestItem.POISON) {
+                        stop = true;
+                    } else if (preserveOrder) {
+                        release(item, batch);
+                    } else {
+                        batch.add(item);
+                    }
+
+                    if (batch.size() >= batchSize) {
+                        flush(batch);
+                    }
+                }
+                drained.clear();
+
+                // Don't hold on to a partial batch when there is nothing else to wait for
+                if (stop || input.isEmpty()) {
+                    flush(batch);
+                }
+            }
+
+            if (running.decrementAndGet() > 0) {
+                input.put(IngestItem.POISON);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Moves all transactions which are next in order to the batch
+     */
+    private void release(IngestItem item, List<IngestItem> batch) {
+        pending.put(item.sequence, item);
+        IngestItem next;
+        while ((next = pending.remove(nextSequence)) != null) {
+            nextSequence++;
+            if (next.rejectedBy == null) {
+                batch.add(next);
+            }
+        }
+    }
+
+    private void flush(List<IngestItem> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        List<Pair<Indexable, Persistable>> models = new ArrayList<>(batch.size());
+        for (IngestItem item : batch) {
+            models.add(new Pair<>(item.hash, item.transaction));
+        }
+
+        try {
+            provider.saveBatch(models);
+        } catch (Exception e) {
+            log.error("Failed to save a batch of " + batch.size() + " transactions", e);
+            metrics.failed.add(batch.size());
+            batch.forEach(onFailure);
+        }
+        metrics.processed.add(batch.size());
+        batch.clear();
+    }
+}
@@ -0,0 +1,73 @@
+package iota.rocksdb.test.pipeline;
+
+import java.util.Queue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters of a single pipeline stage.
+ */
+public class StageMetrics {
+
+    private final IngestStage stage;
+    private final Queue<?> queue;
+    private final long startTime = System.nanoTime();
+
+    final LongAdder processed = new LongAdder();
+    final LongAdder rejected = new LongAdder();
+    final LongAdder failed = new LongAdder();
+
+    StageMetrics(IngestStage stage, Queue<?> queue) {
+        this.stage = stage;
+        this.queue = queue;
+    }
+
+    /**
+     * @return The stage these metrics belong to
+     */
+    public IngestStage getStage() {
+        return stage;
+    }
+
+    /**
+     * @return The amount of transactions waiting in front of this stage
+     */
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    /**
+     * @return The amount of transactions this stage has processed, including rejected transactions
+     */
+    public long getProcessed() {
+        return processed.sum();
+    }
+
+    /**
+     * @return The amount of transactions this stage has rejected
+     */
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    /**
+     * @return The amount of transactions this stage failed to process because of an error
+     */
+    public long getFailed() {
+        return failed.sum();
+    }
+
+    /**
+     * @return The average amount of transactions processed per second since the pipeline started
+     */
+    public double getThroughput() {
+        double seconds = (System.nanoTime() - startTime) / (double) TimeUnit.SECONDS.toNanos(1);
+        return seconds <= 0 ? 0 : getProcessed() / seconds;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s [queue=%d, processed=%d, rejected=%d, failed=%d, throughput=%.1f/s]",
+                stage, getQueueDepth(), getProcessed(), getRejected(), getFailed(), getThroughput());
+    }
+}
@@ -0,0 +1,112 @@
+package iota.rocksdb.test.pipeline;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs the workers of a single stage. Workers take items from the input queue and put them on the output queue,
+ * which blocks them when the next stage can't keep up.
+ */
+class StageRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(StageRunner.class);
+
+    /**
+     * The work a stage does for a single item
+     */
+    interface Processor {
+
+        /**
+         * @param item The item to process
+         * @return <code>false</code> when the item is rejected
+         * @throws Exception when the item could not be processed, the item is rejected
+         */
+        boolean process(IngestItem item) throws Exception;
+    }
+
+    private final IngestStage stage;
+    private final BlockingQueue<IngestItem> input;
+    private final BlockingQueue<IngestItem> output;
+    private final Processor processor;
+    private final StageMetrics metrics;
+    private final boolean forwardRejected;
+
+    private final List<Thread> workers = new ArrayList<>();
+    private final AtomicInteger running;
+
+    /**
+     * @param forwardRejected <code>true</code> when rejected items must reach the next stage,
+     *                        so the persist stage can keep track of the order
+     */
+    StageRunner(IngestStage stage, int parallelism, BlockingQueue<IngestItem> input, BlockingQueue<IngestItem> output,
+            Processor processor, StageMetrics metrics, boolean forwardRejected) {
+        this.stage = stage;
+        this.input = input;
+        this.output = output;
+        this.processor = processor;
+        this.metrics = metrics;
+        this.forwardRejected = forwardRejected;
+        this.running = new AtomicInteger(parallelism);
+
+        for (int i = 0; i < parallelism; i++) {
+            Thread worker = new Thread(this::run, "ingest-" + stage.name().toLowerCase() + "-" + i);
+            worker.setDaemon(true);
+            workers.add(worker);
+        }
+    }
+
+    void start() {
+        workers.forEach(Thread::start);
+    }
+
+    void join() throws InterruptedException {
+        for (Thread worker : workers) {
+            worker.join();
+        }
+    }
+
+    private void run() {
+        try {
+            while (true) {
+                IngestItem item = input.take();
+                if (item == IngestItem.POISON) {
+                    // The last worker to stop tells the next stage, the others pass it on to their siblings
+                    if (running.decrementAndGet() == 0) {
+                        output.put(item);
+                    } else {
+                        input.put(item);
+                    }
+                    return;
+                }
+
+                if (item.rejectedBy == null) {
+                    process(item);
+                }
+                if (item.rejectedBy == null || forwardRejected) {
+                    output.put(item);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void process(IngestItem item) {
+        try {
+            if (!processor.process(item)) {
+                item.rejectedBy = stage;
+                metrics.rejected.increment();
+            }
+        } catch (Exception e) {
+            log.error("Failed to process transaction in stage " + stage, e);
+            item.rejectedBy = stage;
+            metrics.failed.increment();
+        }
+        metrics.processed.increment();
+    }
+}
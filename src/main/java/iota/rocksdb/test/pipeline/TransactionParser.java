@@ -0,0 +1,57 @@
+package iota.rocksdb.test.pipeline;
+
+import static iota.rocksdb.test.util.TransactionTestUtils.*;
+
+import iota.rocksdb.test.Transaction;
+import iota.rocksdb.test.persist.Hash;
+import iota.rocksdb.test.persist.HashFactory;
+import iota.rocksdb.test.util.Converter;
+
+/**
+ * Reads the fields of a transaction from its trits.
+ */
+public class TransactionParser {
+
+    /**
+     * Creates a transaction with all fields that are part of the transaction trits.
+     *
+     * @param bytes The raw transaction bytes, kept as the transaction data
+     * @param trits The trits of the same transaction
+     * @return The parsed transaction
+     */
+    public static Transaction parse(byte[] bytes, byte[] trits) {
+        Transaction transaction = new Transaction();
+        transaction.bytes = bytes;
+        transaction.type = 1;
+
+        transaction.address = HashFactory.TRANSACTION.create(trits, ADDRESS_TRINARY_OFFSET);
+        transaction.value = Converter.longValue(trits, VALUE_TRINARY_OFFSET, VALUE_USABLE_TRINARY_SIZE);
+        transaction.obsoleteTag = tag(trits, OBSOLETE_TAG_TRINARY_OFFSET, OBSOLETE_TAG_TRINARY_SIZE);
+        transaction.timestamp = Converter.longValue(trits, TIMESTAMP_TRINARY_OFFSET, TIMESTAMP_TRINARY_SIZE);
+        transaction.currentIndex = Converter.longValue(trits, CURRENT_INDEX_TRINARY_OFFSET, CURRENT_INDEX_TRINARY_SIZE);
+        transaction.lastIndex = Converter.longValue(trits, LAST_INDEX_TRINARY_OFFSET, LAST_INDEX_TRINARY_SIZE);
+        transaction.bundle = HashFactory.TRANSACTION.create(trits, BUNDLE_TRINARY_OFFSET);
+        transaction.trunk = HashFactory.TRANSACTION.create(trits, TRUNK_TRANSACTION_TRINARY_OFFSET);
+        transaction.branch = HashFactory.TRANSACTION.create(trits, BRANCH_TRANSACTION_TRINARY_OFFSET);
+        transaction.tag = tag(trits, TAG_TRINARY_OFFSET, TAG_TRINARY_SIZE);
+        transaction.attachmentTimestamp = Converter.longValue(trits, ATTACHMENT_TIMESTAMP_TRINARY_OFFSET,
+                ATTACHMENT_TIMESTAMP_TRINARY_SIZE);
+        transaction.attachmentTimestampLowerBound = Converter.longValue(trits,
+                ATTACHMENT_TIMESTAMP_LOWER_BOUND_TRINARY_OFFSET, ATTACHMENT_TIMESTAMP_LOWER_BOUND_TRINARY_SIZE);
+        transaction.attachmentTimestampUpperBound = Converter.longValue(trits,
+                ATTACHMENT_TIMESTAMP_UPPER_BOUND_TRINARY_OFFSET, ATTACHMENT_TIMESTAMP_UPPER_BOUND_TRINARY_SIZE);
+
+        transaction.arrivalTime = System.currentTimeMillis();
+        transaction.parsed = true;
+        return transaction;
+    }
+
+    /**
+     * Tags are shorter than a hash, their trits are padded with zeros to a full hash.
+     */
+    private static Hash tag(byte[] trits, int offset, int size) {
+        byte[] padded = new byte[Hash.SIZE_IN_TRITS];
+        System.arraycopy(trits, offset, padded, 0, size);
+        return HashFactory.TRANSACTION.create(padded, 0);
+    }
+}
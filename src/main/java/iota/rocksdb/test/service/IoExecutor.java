@@ -0,0 +1,204 @@
+package iota.rocksdb.test.service;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs blocking I/O calls off the caller's thread and hands back their result as a {@link CompletableFuture}.
+ *
+ * <p>
+ *     Uses a virtual thread per task when the JDK supports it, otherwise a fixed pool of platform threads.
+ *     The amount of tasks which are queued or running is limited. Tasks submitted above that limit are not queued
+ *     but fail right away with a {@link RejectedExecutionException}, so callers never block on a full executor.
+ * </p>
+ */
+public class IoExecutor implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(IoExecutor.class);
+
+    private final ExecutorService executor;
+    private final boolean virtual;
+    private final Semaphore permits;
+    private final int maxInFlight;
+
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicInteger active = new AtomicInteger();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    /**
+     * @param name The prefix of the thread names
+     * @param threads The amount of platform threads, ignored when virtual threads are used
+     * @param maxInFlight The maximum amount of tasks which are queued or running at the same time
+     */
+    public IoExecutor(String name, int threads, int maxInFlight) {
+        if (threads < 1 || maxInFlight < 1) {
+            throw new IllegalArgumentException("Threads and in flight tasks must be positive");
+        }
+        ExecutorService virtualExecutor = newVirtualThreadExecutor();
+        this.virtual = virtualExecutor != null;
+        this.executor = virtual ? virtualExecutor : Executors.newFixedThreadPool(threads, threadFactory(name));
+        this.maxInFlight = maxInFlight;
+        this.permits = new Semaphore(maxInFlight);
+    }
+
+    /**
+     * Looks up <code>Executors.newVirtualThreadPerTaskExecutor()</code>, which only exists from Java 21 on.
+     *
+     * @return The executor, or <code>null</code> when this JDK has no virtual threads
+     */
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    private static ThreadFactory threadFactory(String name) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + counter.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Runs the task on this executor.
+     *
+     * @param task The blocking task
+     * @param <T> The result type
+     * @return A future which completes with the result of the task, or exceptionally with what the task threw.
+     *         Completes with a {@link RejectedExecutionException} when too many tasks are in flight.
+     */
+    public <T> CompletableFuture<T> submit(Callable<T> task) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        if (!permits.tryAcquire()) {
+            rejected.increment();
+            future.completeExceptionally(new RejectedExecutionException(
+                    "More than " + maxInFlight + " I/O tasks in flight"));
+            return future;
+        }
+
+        queued.incrementAndGet();
+        try {
+            executor.execute(() -> run(task, future));
+        } catch (RejectedExecutionException e) {
+            queued.decrementAndGet();
+            permits.release();
+            rejected.increment();
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    private <T> void run(Callable<T> task, CompletableFuture<T> future) {
+        queued.decrementAndGet();
+        active.incrementAndGet();
+        T result = null;
+        Throwable error = null;
+        try {
+            result = task.call();
+        } catch (Throwable t) {
+            error = t;
+        }
+
+        // Counters and permits are updated before completing, so callers see them once the future is done
+        active.decrementAndGet();
+        permits.release();
+        if (error == null) {
+            completed.increment();
+            future.complete(result);
+        } else {
+            failed.increment();
+            future.completeExceptionally(error);
+        }
+    }
+
+    /**
+     * @return <code>true</code> when tasks run on virtual threads
+     */
+    public boolean isVirtual() {
+        return virtual;
+    }
+
+    /**
+     * @return The maximum amount of tasks which are queued or running at the same time
+     */
+    public int getMaxInFlight() {
+        return maxInFlight;
+    }
+
+    /**
+     * @return The amount of tasks waiting for a thread
+     */
+    public int getQueueDepth() {
+        return queued.get();
+    }
+
+    /**
+     * @return The amount of tasks currently running
+     */
+    public int getActive() {
+        return active.get();
+    }
+
+    /**
+     * @return The amount of tasks which completed normally
+     */
+    public long getCompleted() {
+        return completed.sum();
+    }
+
+    /**
+     * @return The amount of tasks which threw an exception
+     */
+    public long getFailed() {
+        return failed.sum();
+    }
+
+    /**
+     * @return The amount of tasks which were refused because too many tasks were in flight
+     */
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    /**
+     * Stops accepting tasks and waits a short while for running tasks to finish.
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+                log.warn("I/O tasks did not finish in time, interrupting them");
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("IoExecutor [virtual=%s, queued=%d, active=%d, completed=%d, failed=%d, rejected=%d]",
+                virtual, getQueueDepth(), getActive(), getCompleted(), getFailed(), getRejected());
+    }
+}
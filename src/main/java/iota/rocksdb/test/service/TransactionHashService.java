@@ -0,0 +1,179 @@
+package iota.rocksdb.test.service;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import iota.rocksdb.crypto.Sponge;
+import iota.rocksdb.crypto.SpongeFactory;
+import iota.rocksdb.test.persist.Hash;
+import iota.rocksdb.test.persist.HashFactory;
+import iota.rocksdb.test.util.Converter;
+import iota.rocksdb.test.util.TransactionTestUtils;
+
+/**
+ * Calculates transaction hashes of raw transaction bytes on a pool of worker threads.
+ *
+ * <p>
+ *     Every thread that hashes keeps its own sponge and trit buffers, which are reset and reused for every
+ *     transaction. The only allocation per transaction is the resulting {@link Hash}.
+ * </p>
+ * <p>
+ *     A batch is split into ranges that are hashed in parallel on a {@link ForkJoinPool}.
+ *     Hashes are always returned in the order of the transactions they belong to.
+ * </p>
+ */
+public class TransactionHashService implements AutoCloseable {
+
+    /**
+     * Smallest amount of transactions hashed by a single task
+     */
+    private static final int MIN_TASK_SIZE = 16;
+
+    private final ForkJoinPool pool;
+    private final boolean ownsPool;
+    private final ThreadLocal<Worker> workers;
+
+    /**
+     * Creates a hashing service with a worker thread per available processor
+     *
+     * @param mode The sponge used to hash transactions, a Curl-P or Kerl mode
+     */
+    public TransactionHashService(SpongeFactory.Mode mode) {
+        this(mode, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Creates a hashing service with its own pool of worker threads, which is shut down on {@link #close()}
+     *
+     * @param mode The sponge used to hash transactions, a Curl-P or Kerl mode
+     * @param parallelism The amount of worker threads
+     */
+    public TransactionHashService(SpongeFactory.Mode mode, int parallelism) {
+        this(mode, new ForkJoinPool(parallelism), true);
+    }
+
+    /**
+     * Creates a hashing service which runs on a shared pool. The pool is not shut down on {@link #close()}.
+     *
+     * @param mode The sponge used to hash transactions, a Curl-P or Kerl mode
+     * @param pool The pool the hashing tasks run on
+     */
+    public TransactionHashService(SpongeFactory.Mode mode, ForkJoinPool pool) {
+        this(mode, pool, false);
+    }
+
+    private TransactionHashService(SpongeFactory.Mode mode, ForkJoinPool pool, boolean ownsPool) {
+        if (mode == SpongeFactory.Mode.BCURLT) {
+            throw new NoSuchElementException("Batch Curl is not supported, hashing runs per transaction.");
+        }
+        this.pool = pool;
+        this.ownsPool = ownsPool;
+        this.workers = ThreadLocal.withInitial(() -> new Worker(SpongeFactory.create(mode)));
+    }
+
+    /**
+     * Hashes a single transaction on the calling thread
+     *
+     * @param transaction The transaction bytes, {@link iota.rocksdb.test.Transaction#SIZE} long
+     * @return The transaction hash
+     */
+    public Hash hash(byte[] transaction) {
+        return workers.get().hash(transaction);
+    }
+
+    /**
+     * Hashes a batch of transactions in parallel
+     *
+     * @param transactions The bytes of every transaction
+     * @return The hash of every transaction, in the same order
+     */
+    public Hash[] hash(byte[][] transactions) {
+        Hash[] hashes = new Hash[transactions.length];
+        int taskSize = Math.max(MIN_TASK_SIZE, transactions.length / (pool.getParallelism() * 4));
+        pool.invoke(new HashTask(transactions, hashes, 0, transactions.length, taskSize));
+        return hashes;
+    }
+
+    /**
+     * Hashes a batch of transactions in parallel
+     *
+     * @param transactions The bytes of every transaction
+     * @return The hash of every transaction, in the same order
+     */
+    public List<Hash> hash(List<byte[]> transactions) {
+        return Arrays.asList(hash(transactions.toArray(new byte[transactions.size()][])));
+    }
+
+    /**
+     * @return The amount of worker threads hashes are calculated on
+     */
+    public int getParallelism() {
+        return pool.getParallelism();
+    }
+
+    @Override
+    public void close() {
+        if (ownsPool) {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * The sponge and buffers used by a single thread
+     */
+    private static class Worker {
+        private final Sponge sponge;
+        private final byte[] trits = new byte[TransactionTestUtils.TRINARY_SIZE];
+        private final byte[] hashTrits = new byte[Hash.SIZE_IN_TRITS];
+
+        Worker(Sponge sponge) {
+            this.sponge = sponge;
+        }
+
+        Hash hash(byte[] transaction) {
+            Converter.getTrits(transaction, trits);
+            sponge.reset();
+            sponge.absorb(trits, 0, trits.length);
+            sponge.squeeze(hashTrits, 0, hashTrits.length);
+            return HashFactory.TRANSACTION.create(hashTrits, 0, Hash.SIZE_IN_TRITS);
+        }
+    }
+
+    /**
+     * Hashes a range of a batch, splitting it in halves until it is small enough
+     */
+    private class HashTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final byte[][] transactions;
+        private final Hash[] hashes;
+        private final int from;
+        private final int to;
+        private final int taskSize;
+
+        HashTask(byte[][] transactions, Hash[] hashes, int from, int to, int taskSize) {
+            this.transactions = transactions;
+            this.hashes = hashes;
+            this.from = from;
+            this.to = to;
+            this.taskSize = taskSize;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > taskSize) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new HashTask(transactions, hashes, from, middle, taskSize),
+                        new HashTask(transactions, hashes, middle, to, taskSize));
+                return;
+            }
+            Worker worker = workers.get();
+            for (int i = from; i < to; i++) {
+                hashes[i] = worker.hash(transactions[i]);
+            }
+        }
+    }
+}
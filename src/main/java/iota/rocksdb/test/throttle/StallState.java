@@ -0,0 +1,31 @@
+package iota.rocksdb.test.throttle;
+
+/**
+ * The RocksDB properties which lead to a write stall, measured at one moment.
+ */
+public class StallState {
+
+    public final long pendingCompactionBytes;
+    public final int level0Files;
+    public final int immutableMemtables;
+    public final boolean writeStopped;
+
+    /**
+     * @param pendingCompactionBytes The estimated amount of bytes compaction has to rewrite
+     * @param level0Files The highest amount of L0 files of any column family
+     * @param immutableMemtables The highest amount of memtables waiting for a flush of any column family
+     * @param writeStopped <code>true</code> when RocksDB stopped writes already
+     */
+    public StallState(long pendingCompactionBytes, int level0Files, int immutableMemtables, boolean writeStopped) {
+        this.pendingCompactionBytes = pendingCompactionBytes;
+        this.level0Files = level0Files;
+        this.immutableMemtables = immutableMemtables;
+        this.writeStopped = writeStopped;
+    }
+
+    @Override
+    public String toString() {
+        return "StallState [pendingCompactionBytes=" + pendingCompactionBytes + ", level0Files=" + level0Files
+                + ", immutableMemtables=" + immutableMemtables + ", writeStopped=" + writeStopped + "]";
+    }
+}
@@ -0,0 +1,226 @@
+package iota.rocksdb.test.throttle;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Slows down writes before RocksDB stalls them.
+ *
+ * <p>
+ *     The controller polls the stall conditions of the database and compares them with the limits at which
+ *     RocksDB starts to delay writes itself. The closest condition gives the pressure, where 1 means RocksDB
+ *     is about to stall. Above the start pressure every write waits a little, growing linearly up to the maximum
+ *     delay at pressure 1. Compactions and flushes get time to catch up, and writers see a steady latency instead
+ *     of the seconds long stops of a hard stall.
+ * </p>
+ */
+public class WriteStallController implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(WriteStallController.class);
+
+    /**
+     * The longest a single call to {@link #throttle(int)} waits, however many writes it covers
+     */
+    private static final long MAX_WAIT_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    /**
+     * Reads the current stall conditions
+     */
+    public interface Probe {
+
+        StallState probe() throws Exception;
+    }
+
+    /**
+     * The limits at which RocksDB starts to delay writes
+     */
+    public static class Limits {
+
+        final long pendingCompactionBytes;
+        final int level0Files;
+        final int memtables;
+
+        /**
+         * @param pendingCompactionBytes The soft pending compaction bytes limit
+         * @param level0Files The level 0 slowdown writes trigger
+         * @param memtables The max write buffer number
+         */
+        public Limits(long pendingCompactionBytes, int level0Files, int memtables) {
+            this.pendingCompactionBytes = pendingCompactionBytes;
+            this.level0Files = level0Files;
+            this.memtables = memtables;
+        }
+    }
+
+    private final Probe probe;
+    private final Limits limits;
+    private final double startPressure;
+    private final long maxDelayNanos;
+    private final ScheduledExecutorService scheduler;
+
+    private volatile StallState state = new StallState(0, 0, 0, false);
+    private volatile double pressure = 0;
+    private volatile long delayNanos = 0;
+
+    private final LongAdder throttledWrites = new LongAdder();
+    private final LongAdder totalDelayNanos = new LongAdder();
+    private final LongAdder probeFailures = new LongAdder();
+
+    /**
+     * Creates a controller which polls until it is closed.
+     *
+     * @param probe Reads the stall conditions
+     * @param limits The limits of the database
+     * @param startPressure The pressure at which writes start to wait, between 0 and 1
+     * @param maxDelayMicros How long a single write waits when RocksDB is about to stall
+     * @param pollIntervalMillis How often the stall conditions are read
+     */
+    public WriteStallController(Probe probe, Limits limits, double startPressure, long maxDelayMicros,
+            long pollIntervalMillis) {
+        this(probe, limits, startPressure, maxDelayMicros, Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "rocksdb-stall-controller");
+            thread.setDaemon(true);
+            return thread;
+        }));
+        scheduler.scheduleWithFixedDelay(this::update, 0, pollIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Creates a controller which never polls, its state only changes through {@link #update(StallState)}
+     */
+    WriteStallController(Probe probe, Limits limits, double startPressure, long maxDelayMicros) {
+        this(probe, limits, startPressure, maxDelayMicros, null);
+    }
+
+    private WriteStallController(Probe probe, Limits limits, double startPressure, long maxDelayMicros,
+            ScheduledExecutorService scheduler) {
+        if (startPressure < 0 || startPressure >= 1) {
+            if (scheduler != null) {
+                scheduler.shutdown();
+            }
+            throw new IllegalArgumentException("Start pressure must be at least 0 and below 1: " + startPressure);
+        }
+        this.probe = probe;
+        this.limits = limits;
+        this.startPressure = startPressure;
+        this.maxDelayNanos = TimeUnit.MICROSECONDS.toNanos(maxDelayMicros);
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * Reads the stall conditions and calculates the new delay
+     */
+    void update() {
+        try {
+            update(probe.probe());
+        } catch (Exception e) {
+            probeFailures.increment();
+            log.warn("Unable to read the write stall conditions", e);
+        }
+    }
+
+    void update(StallState state) {
+        double pressure = state.writeStopped ? 1 : Math.max(
+                ratio(state.pendingCompactionBytes, limits.pendingCompactionBytes), Math.max(
+                ratio(state.level0Files, limits.level0Files),
+                // the active memtable is not counted, RocksDB stalls when the immutable ones use up all others
+                ratio(state.immutableMemtables, limits.memtables - 1)));
+
+        this.state = state;
+        this.pressure = pressure;
+        if (pressure <= startPressure) {
+            delayNanos = 0;
+        } else {
+            double fraction = Math.min(1, (pressure - startPressure) / (1 - startPressure));
+            delayNanos = (long) (fraction * maxDelayNanos);
+        }
+    }
+
+    private static double ratio(long value, long limit) {
+        return limit <= 0 ? 0 : value / (double) limit;
+    }
+
+    /**
+     * Waits before writing, for as long as the current pressure requires
+     *
+     * @param writes The amount of models that will be written
+     */
+    public void throttle(int writes) {
+        long delay = delayNanos;
+        if (delay == 0 || writes <= 0) {
+            return;
+        }
+
+        long wait = Math.min(MAX_WAIT_NANOS, delay * writes);
+        throttledWrites.add(writes);
+        totalDelayNanos.add(wait);
+        LockSupport.parkNanos(wait);
+    }
+
+    /**
+     * @return The stall conditions of the last poll
+     */
+    public StallState getState() {
+        return state;
+    }
+
+    /**
+     * @return How close the database is to a write stall, 1 or more means a stall is imminent or happening
+     */
+    public double getPressure() {
+        return pressure;
+    }
+
+    /**
+     * @return How long every write waits right now, in microseconds
+     */
+    public long getDelayMicros() {
+        return TimeUnit.NANOSECONDS.toMicros(delayNanos);
+    }
+
+    /**
+     * @return The amount of writes which had to wait
+     */
+    public long getThrottledWrites() {
+        return throttledWrites.sum();
+    }
+
+    /**
+     * @return The total time writers waited, in milliseconds
+     */
+    public long getTotalDelayMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(totalDelayNanos.sum());
+    }
+
+    /**
+     * @return The amount of polls which failed to read the stall conditions
+     */
+    public long getProbeFailures() {
+        return probeFailures.sum();
+    }
+
+    @Override
+    public void close() {
+        if (scheduler == null) {
+            return;
+        }
+        scheduler.shutdownNow();
+        try {
+            scheduler.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("WriteStallController [pressure=%.2f, delay=%dus, throttled=%d, totalDelay=%dms, %s]",
+                pressure, getDelayMicros(), getThrottledWrites(), getTotalDelayMillis(), state);
+    }
+}
@@ -0,0 +1,57 @@
+package iota.rocksdb.test.usage;
+
+import java.util.Arrays;
+
+/**
+ * Where the disk space and memory of one column family go, measured at one moment.
+ */
+public class ColumnFamilyUsage {
+
+    public final String name;
+    public final long liveDataBytes;
+    public final long[] sstBytesPerLevel;
+    public final long memtableBytes;
+    public final long tableReaderBytes;
+    public final long blockCacheBytes;
+    public final long blockCachePinnedBytes;
+
+    /**
+     * @param name The name of the column family
+     * @param liveDataBytes The estimated size of the data without overwritten and deleted entries
+     * @param sstBytesPerLevel The size of the SST files on every LSM level, starting at L0
+     * @param memtableBytes The memory of the active, unflushed and pinned memtables
+     * @param tableReaderBytes The memory of index and filter blocks held outside the block cache
+     * @param blockCacheBytes The memory used by the block cache of this column family,
+     *                        column families sharing a cache report the same cache
+     * @param blockCachePinnedBytes The part of the block cache which can't be evicted
+     */
+    public ColumnFamilyUsage(String name, long liveDataBytes, long[] sstBytesPerLevel, long memtableBytes,
+            long tableReaderBytes, long blockCacheBytes, long blockCachePinnedBytes) {
+        this.name = name;
+        this.liveDataBytes = liveDataBytes;
+        this.sstBytesPerLevel = sstBytesPerLevel;
+        this.memtableBytes = memtableBytes;
+        this.tableReaderBytes = tableReaderBytes;
+        this.blockCacheBytes = blockCacheBytes;
+        this.blockCachePinnedBytes = blockCachePinnedBytes;
+    }
+
+    /**
+     * @return The size of all SST files, including data which will be compacted away
+     */
+    public long getSstBytes() {
+        long total = 0;
+        for (long bytes : sstBytesPerLevel) {
+            total += bytes;
+        }
+        return total;
+    }
+
+    @Override
+    public String toString() {
+        return "ColumnFamilyUsage [name=" + name + ", liveDataBytes=" + liveDataBytes + ", sstBytesPerLevel="
+                + Arrays.toString(sstBytesPerLevel) + ", memtableBytes=" + memtableBytes + ", tableReaderBytes="
+                + tableReaderBytes + ", blockCacheBytes=" + blockCacheBytes + ", blockCachePinnedBytes="
+                + blockCachePinnedBytes + "]";
+    }
+}
@@ -0,0 +1,48 @@
+package iota.rocksdb.test.usage;
+
+import java.util.Map;
+
+import org.rocksdb.MemoryUsageType;
+
+/**
+ * Where the disk space and memory of a database go, per column family and for the whole database.
+ */
+public class StorageUsage {
+
+    public final Map<String, ColumnFamilyUsage> columnFamilies;
+    public final long walBytes;
+    public final long sstFileManagerBytes;
+    public final Map<MemoryUsageType, Long> memory;
+
+    /**
+     * @param columnFamilies The usage of every column family by its name
+     * @param walBytes The size of the write ahead log files
+     * @param sstFileManagerBytes The size of all SST files tracked by the database, including obsolete files
+     *                            which are not deleted yet
+     * @param memory The native memory of the database by type, caches shared by column families are counted once
+     */
+    public StorageUsage(Map<String, ColumnFamilyUsage> columnFamilies, long walBytes, long sstFileManagerBytes,
+            Map<MemoryUsageType, Long> memory) {
+        this.columnFamilies = columnFamilies;
+        this.walBytes = walBytes;
+        this.sstFileManagerBytes = sstFileManagerBytes;
+        this.memory = memory;
+    }
+
+    /**
+     * @return The size of the SST files of all column families and the write ahead log
+     */
+    public long getDiskBytes() {
+        long total = walBytes;
+        for (ColumnFamilyUsage usage : columnFamilies.values()) {
+            total += usage.getSstBytes();
+        }
+        return total;
+    }
+
+    @Override
+    public String toString() {
+        return "StorageUsage [columnFamilies=" + columnFamilies.values() + ", walBytes=" + walBytes
+                + ", sstFileManagerBytes=" + sstFileManagerBytes + ", memory=" + memory + "]";
+    }
+}
@@ -0,0 +1,91 @@
+package iota.rocksdb.test.util;
+
+import java.nio.ByteBuffer;
+import java.util.Comparator;
+
+/**
+ * Operations on byte arrays that work on 8 bytes at a time.
+ *
+ * <p>
+ *     Words are read big-endian through a heap {@link ByteBuffer}, which the JIT compiles to a single load.
+ * </p>
+ */
+public class Bytes {
+
+    /**
+     * Orders byte arrays the same way as the default bytewise comparator of RocksDB
+     *
+     * @see #compare(byte[], byte[])
+     */
+    public static final Comparator<byte[]> BYTEWISE_COMPARATOR = Bytes::compare;
+
+    /**
+     * Compares two arrays lexicographically as unsigned bytes, 8 bytes at a time.
+     * When one array is a prefix of the other, the shorter array comes first.
+     * This is the order in which RocksDB sorts keys by default.
+     *
+     * @param a first array
+     * @param b second array
+     * @return a negative number, zero or a positive number if {@code a} is less than, equal to or greater than {@code b}
+     */
+    public static int compare(byte[] a, byte[] b) {
+        if (a == b) {
+            return 0;
+        }
+        int length = Math.min(a.length, b.length);
+        ByteBuffer left = ByteBuffer.wrap(a);
+        ByteBuffer right = ByteBuffer.wrap(b);
+        int i = 0;
+        for (; i + Long.BYTES <= length; i += Long.BYTES) {
+            long x = left.getLong(i);
+            long y = right.getLong(i);
+            if (x != y) {
+                // big-endian words compare like their bytes
+                return Long.compareUnsigned(x, y);
+            }
+        }
+        for (; i < length; i++) {
+            if (a[i] != b[i]) {
+                return (a[i] & 0xFF) - (b[i] & 0xFF);
+            }
+        }
+        return a.length - b.length;
+    }
+
+    /**
+     * Compares two ranges of equal length for equality, a word at a time
+     *
+     * @param a first array
+     * @param aOffset starting position in the first array
+     * @param b second array
+     * @param bOffset starting position in the second array
+     * @param length amount of bytes to compare
+     * @return <code>true</code> if both ranges contain the same bytes
+     */
+    public static boolean equals(byte[] a, int aOffset, byte[] b, int bOffset, int length) {
+        ByteBuffer left = ByteBuffer.wrap(a);
+        ByteBuffer right = ByteBuffer.wrap(b);
+        int i = 0;
+        for (; i + Long.BYTES <= length; i += Long.BYTES) {
+            if (left.getLong(aOffset + i) != right.getLong(bOffset + i)) {
+                return false;
+            }
+        }
+        for (; i < length; i++) {
+            if (a[aOffset + i] != b[bOffset + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Reads the first 4 bytes of an array as an int
+     *
+     * @param bytes at least 4 bytes
+     * @return the big-endian int value of the first 4 bytes
+     */
+    public static int firstInt(byte[] bytes) {
+        return ByteBuffer.wrap(bytes).getInt(0);
+    }
+}
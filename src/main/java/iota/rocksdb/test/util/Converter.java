@@ -1,5 +1,7 @@
 package iota.rocksdb.test.util;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 
 /**
@@ -29,6 +31,11 @@ public class Converter {
     static final byte[][] BYTE_TO_TRITS_MAPPINGS = new byte[243][];
     static final byte[][] TRYTE_TO_TRITS_MAPPINGS = new byte[27][];
 
+    /**
+     * The trits of every byte value, {@value #NUMBER_OF_TRITS_IN_A_BYTE} per row, indexed by the unsigned byte value
+     */
+    private static final byte[] BYTE_TO_TRITS_TABLE = new byte[256 * NUMBER_OF_TRITS_IN_A_BYTE];
+
     public static final int HIGH_INTEGER_BITS = 0xFFFFFFFF;
     public static final long HIGH_LONG_BITS = 0xFFFFFFFFFFFFFFFFL;
 
@@ -36,6 +43,31 @@ public class Converter {
 
     public static final int MIN_TRYTE_VALUE = -13, MAX_TRYTE_VALUE = 13;
 
+    /**
+     * 3 bytes hold exactly 15 trits, which are 5 trytes
+     */
+    private static final int BYTES_IN_A_GROUP = 3, TRYTES_IN_A_GROUP = 5;
+
+    /**
+     * The ASCII tryte character of every unbalanced tryte digit (tryte value + 13)
+     */
+    private static final byte[] DIGIT_TO_TRYTE = new byte[27];
+
+    /**
+     * The unbalanced tryte digit (tryte value + 13) of every ASCII character, -1 if it is not a tryte
+     */
+    private static final byte[] TRYTE_TO_DIGIT = new byte[128];
+
+    /**
+     * Sum of 3^i for the first 5, 10 and 15 trits: the offset between balanced and unbalanced values of 1 to 3 bytes
+     */
+    private static final int[] BYTES_OFFSET = {0, 121, 29524, 7174453};
+
+    /**
+     * Sum of 3^i for the first 0 to 4 trytes: the offset between balanced and unbalanced values of up to 4 trytes
+     */
+    private static final int[] TRYTES_OFFSET = {0, 13, 364, 9841, 265720};
+
     //lookup tables for bytes->trits and trytes->trits conversion
     static {
 
@@ -51,6 +83,19 @@ public class Converter {
             increment(trits, NUMBER_OF_TRITS_IN_A_TRYTE);
         }
 
+        Arrays.fill(TRYTE_TO_DIGIT, (byte) -1);
+        for (int value = MIN_TRYTE_VALUE; value <= MAX_TRYTE_VALUE; value++) {
+            byte ascii = (byte) TRYTE_ALPHABET.charAt(value < 0 ? value + TRYTE_ALPHABET.length() : value);
+            DIGIT_TO_TRYTE[value - MIN_TRYTE_VALUE] = ascii;
+            TRYTE_TO_DIGIT[ascii] = (byte) (value - MIN_TRYTE_VALUE);
+        }
+
+        for (int i = 0; i < 256; i++) {
+            byte value = (byte) i;
+            System.arraycopy(BYTE_TO_TRITS_MAPPINGS[value < 0 ? (value + BYTE_TO_TRITS_MAPPINGS.length) : value], 0,
+                    BYTE_TO_TRITS_TABLE, i * NUMBER_OF_TRITS_IN_A_BYTE, NUMBER_OF_TRITS_IN_A_BYTE);
+        }
+
     }
     private static void increment(final byte[] trits, final int size) {
         for (int i = 0; i < size; i++) {
@@ -93,12 +138,25 @@ public class Converter {
             throw new IllegalArgumentException("Input array not large enough.");
         }
 
-        for (int i = 0; i < expectedLength; i++) {
+        bytesKernel(trits, srcPos, dest, destPos, tritsLength);
+    }
+
+    /**
+     * Packs trits into bytes, {@value #NUMBER_OF_TRITS_IN_A_BYTE} at a time. Bounds must be checked by the caller.
+     */
+    private static void bytesKernel(final byte[] trits, int srcPos, final byte[] dest, int destPos, final int tritsLength) {
+        final int end = srcPos + tritsLength - tritsLength % NUMBER_OF_TRITS_IN_A_BYTE;
+        for (; srcPos < end; srcPos += NUMBER_OF_TRITS_IN_A_BYTE) {
+            dest[destPos++] = (byte) (trits[srcPos] + 3 * trits[srcPos + 1] + 9 * trits[srcPos + 2]
+                    + 27 * trits[srcPos + 3] + 81 * trits[srcPos + 4]);
+        }
+        int remaining = tritsLength % NUMBER_OF_TRITS_IN_A_BYTE;
+        if (remaining > 0) {
             int value = 0;
-            for (int j = (tritsLength - i * NUMBER_OF_TRITS_IN_A_BYTE) < 5 ? (tritsLength - i * NUMBER_OF_TRITS_IN_A_BYTE) : NUMBER_OF_TRITS_IN_A_BYTE; j-- > 0; ) {
-                value = value * RADIX + trits[srcPos + i * NUMBER_OF_TRITS_IN_A_BYTE + j];
+            while (remaining-- > 0) {
+                value = value * RADIX + trits[srcPos + remaining];
             }
-            dest[destPos + i] = (byte)value;
+            dest[destPos] = (byte) value;
         }
     }
 
@@ -123,19 +181,83 @@ public class Converter {
      * @param trits destination trits array
      */
     public static void getTrits(final byte[] bytes, final byte[] trits) {
+        final int tritsLength = Math.min(trits.length, bytes.length * NUMBER_OF_TRITS_IN_A_BYTE);
+        getTrits(bytes, 0, trits, 0, tritsLength);
+        Arrays.fill(trits, tritsLength, trits.length, (byte) 0);
+    }
+
+    /**
+     * Converts bytes to {@code tritsLength} trits, {@value #NUMBER_OF_TRITS_IN_A_BYTE} trits per byte.<br>
+     *     this method will override the content of {@code trits}
+     *
+     * @param bytes source bytes array
+     * @param bytesOffset starting position in the bytes array
+     * @param trits destination trits array
+     * @param tritsOffset starting position for destination trits array
+     * @param tritsLength amount of trits to convert
+     */
+    public static void getTrits(final byte[] bytes, int bytesOffset, final byte[] trits, int tritsOffset,
+            final int tritsLength) {
+        final int byteCount = (tritsLength + NUMBER_OF_TRITS_IN_A_BYTE - 1) / NUMBER_OF_TRITS_IN_A_BYTE;
+        if (bytesOffset < 0 || bytes.length - bytesOffset < byteCount
+                || tritsOffset < 0 || trits.length - tritsOffset < tritsLength) {
+            throw new IllegalArgumentException("Input array not large enough.");
+        }
 
-        int offset = 0;
-        for (int i = 0; i < bytes.length && offset < trits.length; i++) {
-            System.arraycopy(BYTE_TO_TRITS_MAPPINGS[bytes[i] < 0 ? (bytes[i] + BYTE_TO_TRITS_MAPPINGS.length) : bytes[i]], 0, trits, offset, trits.length - offset < NUMBER_OF_TRITS_IN_A_BYTE ? (trits.length - offset) : NUMBER_OF_TRITS_IN_A_BYTE);
-            offset += NUMBER_OF_TRITS_IN_A_BYTE;
+        final byte[] table = BYTE_TO_TRITS_TABLE;
+        final int end = tritsOffset + tritsLength - tritsLength % NUMBER_OF_TRITS_IN_A_BYTE;
+        for (; tritsOffset < end; tritsOffset += NUMBER_OF_TRITS_IN_A_BYTE) {
+            final int row = (bytes[bytesOffset++] & 0xFF) * NUMBER_OF_TRITS_IN_A_BYTE;
+            trits[tritsOffset] = table[row];
+            trits[tritsOffset + 1] = table[row + 1];
+            trits[tritsOffset + 2] = table[row + 2];
+            trits[tritsOffset + 3] = table[row + 3];
+            trits[tritsOffset + 4] = table[row + 4];
         }
-        while (offset < trits.length) {
-            trits[offset++] = 0;
+        final int remaining = tritsLength % NUMBER_OF_TRITS_IN_A_BYTE;
+        if (remaining > 0) {
+            System.arraycopy(table, (bytes[bytesOffset] & 0xFF) * NUMBER_OF_TRITS_IN_A_BYTE, trits, tritsOffset, remaining);
         }
     }
 
 
 
+    /**
+     * Counts the zero trits at the end of the trits held by {@code bytes}, without converting them.
+     *
+     * @param bytes source bytes array
+     * @param offset starting position in the bytes array
+     * @param tritsLength amount of trits the bytes represent
+     * @return the amount of zero trits, counted back from trit {@code tritsLength - 1}
+     */
+    public static int trailingZeros(final byte[] bytes, final int offset, final int tritsLength) {
+        final byte[] table = BYTE_TO_TRITS_TABLE;
+        int zeros = 0;
+        int trit = tritsLength;
+        while (trit > 0) {
+            final int byteIndex = (trit - 1) / NUMBER_OF_TRITS_IN_A_BYTE;
+            final int value = bytes[offset + byteIndex];
+            final int tritsInByte = trit - byteIndex * NUMBER_OF_TRITS_IN_A_BYTE;
+            if (value == 0) {
+                zeros += tritsInByte;
+                trit -= tritsInByte;
+                continue;
+            }
+            final int row = (value & 0xFF) * NUMBER_OF_TRITS_IN_A_BYTE;
+            int i = tritsInByte;
+            while (i > 0 && table[row + i - 1] == 0) {
+                i--;
+                zeros++;
+            }
+            if (i > 0) {
+                break;
+            }
+            trit -= tritsInByte;
+        }
+        return zeros;
+    }
+
+
     // Trytes <-> Trits
 
     /**
@@ -215,6 +337,153 @@ public class Converter {
     }
 
 
+    // Bytes <-> Trytes
+
+    /**
+     * Converts bytes directly to ASCII tryte characters, without expanding them to trits.<br>
+     *     this method will override the content of {@code dest}
+     *
+     * @param bytes source bytes array
+     * @param offset starting position in the bytes array
+     * @param dest destination array for the ASCII trytes
+     * @param destOffset starting position in the destination array
+     * @param tryteCount amount of trytes to write
+     */
+    public static void trytesFromBytes(final byte[] bytes, int offset, final byte[] dest, int destOffset,
+            final int tryteCount) {
+        final int byteCount = (tryteCount * NUMBER_OF_TRITS_IN_A_TRYTE + NUMBER_OF_TRITS_IN_A_BYTE - 1) / NUMBER_OF_TRITS_IN_A_BYTE;
+        if (offset < 0 || bytes.length - offset < byteCount || destOffset < 0 || dest.length - destOffset < tryteCount) {
+            throw new IllegalArgumentException("Input array not large enough.");
+        }
+
+        final int groups = tryteCount / TRYTES_IN_A_GROUP;
+        for (int group = 0; group < groups; group++, offset += BYTES_IN_A_GROUP, destOffset += TRYTES_IN_A_GROUP) {
+            int value = balanced(bytes[offset]) + 243 * balanced(bytes[offset + 1])
+                    + 59049 * balanced(bytes[offset + 2]) + BYTES_OFFSET[BYTES_IN_A_GROUP];
+            dest[destOffset] = DIGIT_TO_TRYTE[value % 27];
+            value /= 27;
+            dest[destOffset + 1] = DIGIT_TO_TRYTE[value % 27];
+            value /= 27;
+            dest[destOffset + 2] = DIGIT_TO_TRYTE[value % 27];
+            value /= 27;
+            dest[destOffset + 3] = DIGIT_TO_TRYTE[value % 27];
+            dest[destOffset + 4] = DIGIT_TO_TRYTE[value / 27];
+        }
+
+        final int remaining = tryteCount - groups * TRYTES_IN_A_GROUP;
+        if (remaining > 0) {
+            final int remainingBytes = byteCount - groups * BYTES_IN_A_GROUP;
+            int value = 0;
+            for (int i = remainingBytes; i-- > 0; ) {
+                value = value * 243 + balanced(bytes[offset + i]);
+            }
+            value += BYTES_OFFSET[remainingBytes];
+            for (int i = 0; i < remaining; i++, value /= 27) {
+                dest[destOffset + i] = DIGIT_TO_TRYTE[value % 27];
+            }
+        }
+    }
+
+    /**
+     * Bytes outside of -121..121 don't come out of the trit conversion, but are wrapped by 243 like the byte to trits
+     * mapping does, so both conversions agree on any input
+     */
+    private static int balanced(byte value) {
+        return value > 121 ? value - 243 : value < -121 ? value + 243 : value;
+    }
+
+    /**
+     * Converts bytes directly to ASCII tryte characters, written at the position of {@code dest}.
+     * @see #trytesFromBytes(byte[], int, byte[], int, int)
+     *
+     * @param bytes source bytes array
+     * @param offset starting position in the bytes array
+     * @param dest destination buffer, its position is advanced by {@code tryteCount}
+     * @param tryteCount amount of trytes to write
+     */
+    public static void trytesFromBytes(final byte[] bytes, final int offset, final ByteBuffer dest, final int tryteCount) {
+        if (dest.remaining() < tryteCount) {
+            throw new IllegalArgumentException("Destination buffer not large enough.");
+        }
+        if (dest.hasArray()) {
+            trytesFromBytes(bytes, offset, dest.array(), dest.arrayOffset() + dest.position(), tryteCount);
+            dest.position(dest.position() + tryteCount);
+        } else {
+            byte[] ascii = new byte[tryteCount];
+            trytesFromBytes(bytes, offset, ascii, 0, tryteCount);
+            dest.put(ascii);
+        }
+    }
+
+    /**
+     * Converts bytes directly to a tryte string.
+     * @see #trytesFromBytes(byte[], int, byte[], int, int)
+     *
+     * @param bytes source bytes array
+     * @param offset starting position in the bytes array
+     * @param tryteCount amount of trytes to convert
+     * @return tryte string
+     */
+    public static String trytesFromBytes(final byte[] bytes, final int offset, final int tryteCount) {
+        byte[] ascii = new byte[tryteCount];
+        trytesFromBytes(bytes, offset, ascii, 0, tryteCount);
+        return new String(ascii, StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Converts trytes directly to bytes, without expanding them to trits.
+     *     the inverse of {@link #trytesFromBytes(byte[], int, byte[], int, int)}.<br>
+     *     this method will override the content of {@code dest}
+     *
+     * @param trytes source trytes
+     * @param dest destination bytes array
+     * @param destOffset starting position in the destination array
+     */
+    public static void bytesFromTrytes(final CharSequence trytes, final byte[] dest, int destOffset) {
+        final int tryteCount = trytes.length();
+        final int byteCount = (tryteCount * NUMBER_OF_TRITS_IN_A_TRYTE + NUMBER_OF_TRITS_IN_A_BYTE - 1) / NUMBER_OF_TRITS_IN_A_BYTE;
+        if (destOffset < 0 || dest.length - destOffset < byteCount) {
+            throw new IllegalArgumentException("Destination array is not large enough.");
+        }
+
+        final int groups = tryteCount / TRYTES_IN_A_GROUP;
+        int index = 0;
+        for (int group = 0; group < groups; group++, destOffset += BYTES_IN_A_GROUP) {
+            int value = 0;
+            for (int i = index + TRYTES_IN_A_GROUP; i-- > index; ) {
+                value = value * 27 + digit(trytes.charAt(i));
+            }
+            index += TRYTES_IN_A_GROUP;
+            dest[destOffset] = (byte) (value % 243 - 121);
+            value /= 243;
+            dest[destOffset + 1] = (byte) (value % 243 - 121);
+            dest[destOffset + 2] = (byte) (value / 243 - 121);
+        }
+
+        final int remaining = tryteCount - index;
+        if (remaining > 0) {
+            final int remainingBytes = byteCount - groups * BYTES_IN_A_GROUP;
+            int value = 0;
+            for (int i = tryteCount; i-- > index; ) {
+                value = value * 27 + digit(trytes.charAt(i));
+            }
+            // trits after the last tryte are 0, which is the unbalanced digit 1
+            value += BYTES_OFFSET[remainingBytes] - TRYTES_OFFSET[remaining];
+            for (int i = 0; i < remainingBytes; i++, value /= 243) {
+                dest[destOffset + i] = (byte) (value % 243 - 121);
+            }
+        }
+    }
+
+    private static int digit(char tryte) {
+        int digit = tryte < TRYTE_TO_DIGIT.length ? TRYTE_TO_DIGIT[tryte] : -1;
+        if (digit < 0) {
+            throw new IllegalArgumentException("Input contains illegal character: " + tryte);
+        }
+        return digit;
+    }
+
+
     // Long <-> Trits
 
     /**
@@ -345,7 +614,7 @@ public class Converter {
         final byte[] trits = new byte[length];
         long low;
         long hi;
-        int mask = 1 << bitIndex;
+        long mask = 1L << bitIndex;
         for(int i = 0; i < length; i++) {
             low = pair.low[i] & mask;
             hi = pair.hi[i] & mask;
@@ -360,6 +629,56 @@ public class Converter {
         return trits;
     }
 
+    /**
+     * Packs the trits of up to 64 inputs into a bit-sliced pair, input {@code i} is stored in bit {@code i}.<br>
+     *     Bits of unused inputs are set to the trit 0. this method will override the content of {@code dest}
+     *
+     * @param trits source trit arrays, at most 64
+     * @param count amount of arrays in {@code trits} to pack
+     * @param srcPos starting position in every trits array
+     * @param dest destination pair, low and high arrays of at least {@code length}
+     * @param length amount of trits to pack
+     */
+    public static void longPair(final byte[][] trits, final int count, final int srcPos,
+            final Pair<long[], long[]> dest, final int length) {
+        final long[] low = dest.low;
+        final long[] hi = dest.hi;
+        for (int i = 0; i < length; i++) {
+            long l = HIGH_LONG_BITS;
+            long h = HIGH_LONG_BITS;
+            for (int j = 0; j < count; j++) {
+                final byte trit = trits[j][srcPos + i];
+                if (trit == 1) {
+                    l &= ~(1L << j);
+                } else if (trit == -1) {
+                    h &= ~(1L << j);
+                }
+            }
+            low[i] = l;
+            hi[i] = h;
+        }
+    }
+
+    /**
+     * Extracts the trits stored in bit {@code bitIndex} of a bit-sliced pair.<br>
+     *     the inverse of {@link #longPair(byte[][], int, int, Pair, int)}.
+     *     this method will override the content of {@code dest}
+     *
+     * @param pair source pair
+     * @param bitIndex the bit which holds the input to extract
+     * @param dest destination trits array
+     * @param destPos starting position for destination trits array
+     * @param length amount of trits to extract
+     */
+    public static void trits(final Pair<long[], long[]> pair, final int bitIndex, final byte[] dest,
+            final int destPos, final int length) {
+        for (int i = 0; i < length; i++) {
+            final long low = (pair.low[i] >>> bitIndex) & 1;
+            final long hi = (pair.hi[i] >>> bitIndex) & 1;
+            dest[destPos + i] = (byte) (hi - low);
+        }
+    }
+
     public static byte[] trits(long[] low, long[] hi) {
         byte[] trits = new byte[low.length];
         for(int i = 0; i < trits.length; i++) {
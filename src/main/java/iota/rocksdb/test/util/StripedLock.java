@@ -0,0 +1,100 @@
+package iota.rocksdb.test.util;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A fixed set of locks shared by keys with the same hash.
+ *
+ * <p>
+ *     Writers of different keys rarely wait for each other, while the memory used doesn't grow with the keys.
+ *     Locks of many keys are always taken in stripe order, so two writers of overlapping keys can't deadlock.
+ * </p>
+ */
+public class StripedLock {
+
+    private final ReentrantLock[] stripes;
+
+    /**
+     * @param stripes The amount of locks, more stripes means less contention
+     */
+    public StripedLock(int stripes) {
+        if (stripes < 1) {
+            throw new IllegalArgumentException("At least one stripe is needed");
+        }
+        this.stripes = new ReentrantLock[stripes];
+        for (int i = 0; i < stripes; i++) {
+            this.stripes[i] = new ReentrantLock();
+        }
+    }
+
+    private int stripeOf(byte[] key) {
+        return Math.floorMod(Arrays.hashCode(key), stripes.length);
+    }
+
+    /**
+     * Locks the stripe of a key
+     *
+     * @param key The key which will be written
+     * @return The held lock, to be unlocked by the caller
+     */
+    public ReentrantLock lock(byte[] key) {
+        ReentrantLock lock = stripes[stripeOf(key)];
+        lock.lock();
+        return lock;
+    }
+
+    /**
+     * Locks the stripes of all keys, every stripe once and in stripe order
+     *
+     * @param keys The keys which will be written
+     * @return The held locks, to be passed to {@link #unlock(ReentrantLock[])}
+     */
+    public ReentrantLock[] lockAll(Collection<byte[]> keys) {
+        boolean[] needed = new boolean[stripes.length];
+        int count = 0;
+        for (byte[] key : keys) {
+            int stripe = stripeOf(key);
+            if (!needed[stripe]) {
+                needed[stripe] = true;
+                count++;
+            }
+        }
+        return lockStripes(needed, count);
+    }
+
+    /**
+     * Locks every stripe, which blocks all writers
+     *
+     * @return The held locks, to be passed to {@link #unlock(ReentrantLock[])}
+     */
+    public ReentrantLock[] lockAll() {
+        boolean[] needed = new boolean[stripes.length];
+        Arrays.fill(needed, true);
+        return lockStripes(needed, stripes.length);
+    }
+
+    private ReentrantLock[] lockStripes(boolean[] needed, int count) {
+        ReentrantLock[] held = new ReentrantLock[count];
+        int position = 0;
+        for (int stripe = 0; stripe < needed.length; stripe++) {
+            if (needed[stripe]) {
+                stripes[stripe].lock();
+                held[position++] = stripes[stripe];
+            }
+        }
+        return held;
+    }
+
+    /**
+     * Unlocks the locks in the reverse order they were taken
+     *
+     * @param held The locks returned by one of the <tt>lockAll</tt> methods
+     */
+    public void unlock(ReentrantLock[] held) {
+        for (int i = held.length - 1; i >= 0; i--) {
+            held[i].unlock();
+        }
+    }
+}
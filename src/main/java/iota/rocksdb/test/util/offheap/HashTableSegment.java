@@ -0,0 +1,271 @@
+package iota.rocksdb.test.util.offheap;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.locks.StampedLock;
+
+import iota.rocksdb.test.persist.Hash;
+
+/**
+ * One stripe of an off-heap hash table. An open-addressing table with linear probing,
+ * keyed by the {@value Hash#SIZE_IN_BYTES} bytes of a hash and holding a long value per key.
+ *
+ * <p>
+ *     Every slot is {@value #SLOT_SIZE} bytes: the key, a state byte and the value.
+ *     Reads are optimistic and only take the read lock if a write happened in the meantime,
+ *     writes take the write lock of the segment.
+ * </p>
+ */
+class HashTableSegment {
+
+    static final int SLOT_SIZE = 64;
+    private static final int KEY_WORDS = Hash.SIZE_IN_BYTES / Long.BYTES;
+    private static final int STATE_OFFSET = Hash.SIZE_IN_BYTES;
+    private static final int VALUE_OFFSET = SLOT_SIZE - Long.BYTES;
+
+    private static final byte EMPTY = 0, USED = 1, DELETED = 2;
+
+    /**
+     * The largest power of two amount of slots that fits in a single buffer
+     */
+    static final int MAX_CAPACITY = 1 << 24;
+    private static final double MAX_LOAD = 0.75;
+
+    private final StampedLock lock = new StampedLock();
+    private final Path spillDirectory;
+    private final String name;
+
+    private ByteBuffer table;
+    private Path file;
+    private int generation;
+    private int size;
+    private int deleted;
+
+    /**
+     * @param capacity Initial amount of slots, a power of two
+     * @param spillDirectory Directory for memory-mapped tables, <code>null</code> for direct memory
+     * @param name Unique file name prefix of this segment inside the spill directory
+     */
+    HashTableSegment(int capacity, Path spillDirectory, String name) {
+        this.spillDirectory = spillDirectory;
+        this.name = name;
+        table = allocate(capacity);
+    }
+
+    long get(byte[] key, long hash, long defaultValue) {
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            ByteBuffer current = table;
+            int slot = find(current, key, hash);
+            long value = slot < 0 ? defaultValue : current.getLong(slot * SLOT_SIZE + VALUE_OFFSET);
+            if (lock.validate(stamp)) {
+                return value;
+            }
+        }
+        stamp = lock.readLock();
+        try {
+            int slot = find(table, key, hash);
+            return slot < 0 ? defaultValue : table.getLong(slot * SLOT_SIZE + VALUE_OFFSET);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    boolean contains(byte[] key, long hash) {
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            boolean found = find(table, key, hash) >= 0;
+            if (lock.validate(stamp)) {
+                return found;
+            }
+        }
+        stamp = lock.readLock();
+        try {
+            return find(table, key, hash) >= 0;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Stores a value for a key
+     *
+     * @param onlyIfAbsent <code>true</code> to keep the value of an existing key
+     * @param add <code>true</code> to add {@code value} to the existing value instead of replacing it
+     * @return <code>true</code> if the key was not present before
+     */
+    boolean put(byte[] key, long hash, long value, boolean onlyIfAbsent, boolean add) {
+        long stamp = lock.writeLock();
+        try {
+            int slot = find(table, key, hash);
+            if (slot >= 0) {
+                int position = slot * SLOT_SIZE + VALUE_OFFSET;
+                if (add) {
+                    table.putLong(position, table.getLong(position) + value);
+                } else if (!onlyIfAbsent) {
+                    table.putLong(position, value);
+                }
+                return false;
+            }
+            ensureCapacity();
+            insert(table, key, hash, value);
+            size++;
+            return true;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    boolean remove(byte[] key, long hash) {
+        long stamp = lock.writeLock();
+        try {
+            int slot = find(table, key, hash);
+            if (slot < 0) {
+                return false;
+            }
+            table.put(slot * SLOT_SIZE + STATE_OFFSET, DELETED);
+            size--;
+            deleted++;
+            return true;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    int size() {
+        long stamp = lock.readLock();
+        try {
+            return size;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Releases the table, deleting its file if it was spilled
+     */
+    void close() {
+        long stamp = lock.writeLock();
+        try {
+            table = ByteBuffer.allocate(SLOT_SIZE);
+            size = 0;
+            deleted = 0;
+            deleteFile();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * @return The slot of the key, or -1 if it is not in the table
+     */
+    private static int find(ByteBuffer table, byte[] key, long hash) {
+        int capacity = table.capacity() / SLOT_SIZE;
+        int mask = capacity - 1;
+        int slot = (int) hash & mask;
+        for (int probes = 0; probes < capacity; probes++, slot = (slot + 1) & mask) {
+            int base = slot * SLOT_SIZE;
+            byte state = table.get(base + STATE_OFFSET);
+            if (state == EMPTY) {
+                return -1;
+            }
+            if (state == USED && keyEquals(table, base, key)) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean keyEquals(ByteBuffer table, int base, byte[] key) {
+        ByteBuffer keyWords = ByteBuffer.wrap(key);
+        for (int i = 0; i < KEY_WORDS; i++) {
+            if (table.getLong(base + i * Long.BYTES) != keyWords.getLong(i * Long.BYTES)) {
+                return false;
+            }
+        }
+        return table.get(base + Hash.SIZE_IN_BYTES - 1) == key[Hash.SIZE_IN_BYTES - 1];
+    }
+
+    private static void insert(ByteBuffer table, byte[] key, long hash, long value) {
+        int mask = table.capacity() / SLOT_SIZE - 1;
+        int slot = (int) hash & mask;
+        while (table.get(slot * SLOT_SIZE + STATE_OFFSET) == USED) {
+            slot = (slot + 1) & mask;
+        }
+        int base = slot * SLOT_SIZE;
+        for (int i = 0; i < Hash.SIZE_IN_BYTES; i++) {
+            table.put(base + i, key[i]);
+        }
+        table.put(base + STATE_OFFSET, USED);
+        table.putLong(base + VALUE_OFFSET, value);
+    }
+
+    /**
+     * Grows the table, or cleans out deleted slots, before an insert would exceed the maximum load.
+     * Must hold the write lock.
+     */
+    private void ensureCapacity() {
+        int capacity = table.capacity() / SLOT_SIZE;
+        if (size + deleted + 1 <= capacity * MAX_LOAD) {
+            return;
+        }
+        int newCapacity = (size + 1) * 2 > capacity * MAX_LOAD ? capacity * 2 : capacity;
+        if (newCapacity > MAX_CAPACITY) {
+            throw new IllegalStateException("Segment is full, use more segments");
+        }
+
+        ByteBuffer old = table;
+        Path oldFile = file;
+        ByteBuffer grown = allocate(newCapacity);
+        byte[] key = new byte[Hash.SIZE_IN_BYTES];
+        for (int slot = 0; slot < capacity; slot++) {
+            int base = slot * SLOT_SIZE;
+            if (old.get(base + STATE_OFFSET) == USED) {
+                for (int i = 0; i < key.length; i++) {
+                    key[i] = old.get(base + i);
+                }
+                insert(grown, key, OffHeapHashMap.hash(key), old.getLong(base + VALUE_OFFSET));
+            }
+        }
+        table = grown;
+        deleted = 0;
+        if (oldFile != null) {
+            delete(oldFile);
+        }
+    }
+
+    private ByteBuffer allocate(int capacity) {
+        long bytes = (long) capacity * SLOT_SIZE;
+        if (spillDirectory == null) {
+            return ByteBuffer.allocateDirect((int) bytes);
+        }
+        file = spillDirectory.resolve(name + "-" + generation++ + ".table");
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // a new file is zero filled, which marks every slot as empty
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to map segment table " + file, e);
+        }
+    }
+
+    private void deleteFile() {
+        if (file != null) {
+            delete(file);
+            file = null;
+        }
+    }
+
+    private static void delete(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to delete segment table " + path, e);
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package iota.rocksdb.test.util.offheap;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+
+import iota.rocksdb.test.persist.Hash;
+
+/**
+ * A map from {@link Hash} to primitive long values, stored outside of the Java heap.
+ *
+ * <p>
+ *     Keys are stored inline as their {@value Hash#SIZE_IN_BYTES} bytes, in open-addressing tables held in
+ *     direct buffers or, when a spill directory is given, in memory-mapped files. Neither keys nor values are
+ *     boxed, so the map can hold far more entries than a <tt>HashMap&lt;Hash, Long&gt;</tt>.
+ * </p>
+ * <p>
+ *     The map is split in segments which each have their own lock. Reads are optimistic and do not block,
+ *     writes only lock the segment of their key. Lookups use {@link Hash#bytes()} directly, without copying.
+ * </p>
+ */
+public class OffHeapHashMap implements AutoCloseable {
+
+    private static final int DEFAULT_SEGMENTS = 64;
+
+    private final HashTableSegment[] segments;
+    private final int segmentShift;
+
+    /**
+     * Creates a map in direct memory with {@value #DEFAULT_SEGMENTS} segments
+     *
+     * @param expectedSize The amount of entries the map is sized for initially, it grows when needed
+     */
+    public OffHeapHashMap(long expectedSize) {
+        this(expectedSize, DEFAULT_SEGMENTS, null);
+    }
+
+    /**
+     * Creates a map
+     *
+     * @param expectedSize The amount of entries the map is sized for initially, it grows when needed
+     * @param segments The amount of independently locked segments, rounded up to a power of two
+     * @param spillDirectory Directory to store the tables in as memory-mapped files,
+     *                       or <code>null</code> to keep them in direct memory
+     */
+    public OffHeapHashMap(long expectedSize, int segments, Path spillDirectory) {
+        int segmentCount = Integer.highestOneBit(Math.max(1, segments));
+        if (segmentCount < segments) {
+            segmentCount <<= 1;
+        }
+        long perSegment = Math.max(16, (long) (expectedSize / 0.75 / segmentCount) + 1);
+        int capacity = (int) Math.min(HashTableSegment.MAX_CAPACITY, Long.highestOneBit(perSegment - 1) << 1);
+
+        this.segments = new HashTableSegment[segmentCount];
+        this.segmentShift = Long.SIZE - Integer.numberOfTrailingZeros(segmentCount);
+        String prefix = "offheap-" + Integer.toHexString(System.identityHashCode(this)) + "-";
+        for (int i = 0; i < segmentCount; i++) {
+            this.segments[i] = new HashTableSegment(capacity, spillDirectory, prefix + i);
+        }
+    }
+
+    /**
+     * @param key The key to look up
+     * @param defaultValue The value returned when the key is not in the map
+     * @return The value of the key, or {@code defaultValue}
+     */
+    public long get(Hash key, long defaultValue) {
+        return get(key.bytes(), defaultValue);
+    }
+
+    /**
+     * @param key The {@value Hash#SIZE_IN_BYTES} bytes of the key to look up
+     * @param defaultValue The value returned when the key is not in the map
+     * @return The value of the key, or {@code defaultValue}
+     */
+    public long get(byte[] key, long defaultValue) {
+        long hash = hash(key);
+        return segment(hash).get(key, hash, defaultValue);
+    }
+
+    /**
+     * @param key The key to look up
+     * @return <code>true</code> if the map contains the key
+     */
+    public boolean containsKey(Hash key) {
+        return containsKey(key.bytes());
+    }
+
+    /**
+     * @param key The {@value Hash#SIZE_IN_BYTES} bytes of the key to look up
+     * @return <code>true</code> if the map contains the key
+     */
+    public boolean containsKey(byte[] key) {
+        long hash = hash(key);
+        return segment(hash).contains(key, hash);
+    }
+
+    /**
+     * Stores the value of a key, replacing the existing value
+     *
+     * @param key The key
+     * @param value The value
+     * @return <code>true</code> if the key was not in the map before
+     */
+    public boolean put(Hash key, long value) {
+        return put(key.bytes(), value);
+    }
+
+    /**
+     * @see #put(Hash, long)
+     * @param key The {@value Hash#SIZE_IN_BYTES} bytes of the key
+     * @param value The value
+     * @return <code>true</code> if the key was not in the map before
+     */
+    public boolean put(byte[] key, long value) {
+        long hash = hash(key);
+        return segment(hash).put(key, hash, value, false, false);
+    }
+
+    /**
+     * Stores the value of a key, only if the key is not in the map yet
+     *
+     * @param key The key
+     * @param value The value
+     * @return <code>true</code> if the value was stored
+     */
+    public boolean putIfAbsent(Hash key, long value) {
+        byte[] bytes = key.bytes();
+        long hash = hash(bytes);
+        return segment(hash).put(bytes, hash, value, true, false);
+    }
+
+    /**
+     * Adds {@code delta} to the value of a key. A key which is not in the map yet is stored with value {@code delta}.
+     *
+     * @param key The key
+     * @param delta The amount to add
+     */
+    public void add(Hash key, long delta) {
+        byte[] bytes = key.bytes();
+        long hash = hash(bytes);
+        segment(hash).put(bytes, hash, delta, false, true);
+    }
+
+    /**
+     * @param key The key to remove
+     * @return <code>true</code> if the key was in the map
+     */
+    public boolean remove(Hash key) {
+        byte[] bytes = key.bytes();
+        long hash = hash(bytes);
+        return segment(hash).remove(bytes, hash);
+    }
+
+    /**
+     * @return The amount of keys in the map
+     */
+    public long size() {
+        long size = 0;
+        for (HashTableSegment segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    /**
+     * Releases the memory of the map and deletes its spilled files. The map is empty afterwards.
+     */
+    @Override
+    public void close() {
+        for (HashTableSegment segment : segments) {
+            segment.close();
+        }
+    }
+
+    private HashTableSegment segment(long hash) {
+        return segments[segmentShift == Long.SIZE ? 0 : (int) (hash >>> segmentShift)];
+    }
+
+    /**
+     * Mixes the first words of a key. The high bits select the segment, the low bits the slot.
+     */
+    static long hash(byte[] key) {
+        ByteBuffer words = ByteBuffer.wrap(key);
+        long hash = words.getLong(0) ^ Long.rotateLeft(words.getLong(Long.BYTES), 31);
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        return hash ^ (hash >>> 33);
+    }
+}
@@ -0,0 +1,72 @@
+package iota.rocksdb.test.util.offheap;
+
+import java.nio.file.Path;
+
+import iota.rocksdb.test.persist.Hash;
+
+/**
+ * A set of {@link Hash} stored outside of the Java heap, for example to track visited transactions.
+ *
+ * @see OffHeapHashMap
+ */
+public class OffHeapHashSet implements AutoCloseable {
+
+    private final OffHeapHashMap map;
+
+    /**
+     * Creates a set in direct memory
+     *
+     * @param expectedSize The amount of hashes the set is sized for initially, it grows when needed
+     */
+    public OffHeapHashSet(long expectedSize) {
+        map = new OffHeapHashMap(expectedSize);
+    }
+
+    /**
+     * Creates a set
+     *
+     * @param expectedSize The amount of hashes the set is sized for initially, it grows when needed
+     * @param segments The amount of independently locked segments
+     * @param spillDirectory Directory to store the tables in as memory-mapped files,
+     *                       or <code>null</code> to keep them in direct memory
+     */
+    public OffHeapHashSet(long expectedSize, int segments, Path spillDirectory) {
+        map = new OffHeapHashMap(expectedSize, segments, spillDirectory);
+    }
+
+    /**
+     * @param hash The hash to add
+     * @return <code>true</code> if the hash was not in the set before
+     */
+    public boolean add(Hash hash) {
+        return map.putIfAbsent(hash, 0);
+    }
+
+    /**
+     * @param hash The hash to look up
+     * @return <code>true</code> if the set contains the hash
+     */
+    public boolean contains(Hash hash) {
+        return map.containsKey(hash);
+    }
+
+    /**
+     * @param hash The hash to remove
+     * @return <code>true</code> if the hash was in the set
+     */
+    public boolean remove(Hash hash) {
+        return map.remove(hash);
+    }
+
+    /**
+     * @return The amount of hashes in the set
+     */
+    public long size() {
+        return map.size();
+    }
+
+    @Override
+    public void close() {
+        map.close();
+    }
+}
@@ -0,0 +1,140 @@
+package iota.rocksdb.test.warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Loads keys in the background in parallel batches, so their blocks are in the block cache
+ * before they are requested.
+ */
+public class CacheWarmer implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(CacheWarmer.class);
+
+    /**
+     * Reads a batch of keys of a single column family
+     */
+    public interface Loader {
+
+        void load(String columnFamily, List<byte[]> keys) throws Exception;
+    }
+
+    private final ExecutorService executor;
+    private final long total;
+    private final AtomicLong loaded = new AtomicLong();
+    private final AtomicInteger remainingBatches = new AtomicInteger();
+    private final long startTime = System.nanoTime();
+    private volatile long duration = -1;
+
+    /**
+     * Creates and starts a warm-up.
+     *
+     * @param keys The keys of every column family
+     * @param batchSize The amount of keys read at once
+     * @param threads The amount of batches read in parallel
+     * @param loader Reads the batches
+     */
+    public CacheWarmer(Map<String, List<byte[]>> keys, int batchSize, int threads, Loader loader) {
+        AtomicInteger counter = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "rocksdb-warmup-" + counter.getAndIncrement());
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+
+        List<Runnable> batches = new ArrayList<>();
+        long total = 0;
+        for (Map.Entry<String, List<byte[]>> entry : keys.entrySet()) {
+            List<byte[]> list = entry.getValue();
+            total += list.size();
+            for (int from = 0; from < list.size(); from += batchSize) {
+                List<byte[]> batch = list.subList(from, Math.min(list.size(), from + batchSize));
+                batches.add(() -> load(loader, entry.getKey(), batch));
+            }
+        }
+        this.total = total;
+
+        remainingBatches.set(batches.size());
+        if (batches.isEmpty()) {
+            duration = 0;
+        }
+        batches.forEach(executor::execute);
+        executor.shutdown();
+    }
+
+    private void load(Loader loader, String columnFamily, List<byte[]> batch) {
+        try {
+            loader.load(columnFamily, batch);
+        } catch (Exception e) {
+            log.warn("Failed to warm up " + batch.size() + " keys of " + columnFamily, e);
+        }
+        loaded.addAndGet(batch.size());
+        if (remainingBatches.decrementAndGet() == 0) {
+            duration = System.nanoTime() - startTime;
+            log.info("Warmed up {} keys in {} ms", total, TimeUnit.NANOSECONDS.toMillis(duration));
+        }
+    }
+
+    /**
+     * @return The amount of keys to warm up
+     */
+    public long getTotal() {
+        return total;
+    }
+
+    /**
+     * @return The amount of keys which have been read so far
+     */
+    public long getLoaded() {
+        return loaded.get();
+    }
+
+    /**
+     * @return The fraction of keys which have been read, between 0 and 1
+     */
+    public double getProgress() {
+        return total == 0 ? 1 : loaded.get() / (double) total;
+    }
+
+    /**
+     * @return <code>true</code> once all keys have been read
+     */
+    public boolean isDone() {
+        return duration >= 0;
+    }
+
+    /**
+     * Waits for the warm-up to finish
+     *
+     * @param timeout How long to wait
+     * @param unit The unit of the timeout
+     * @return <code>true</code> when the warm-up finished
+     * @throws InterruptedException when interrupted while waiting
+     */
+    public boolean await(long timeout, TimeUnit unit) throws InterruptedException {
+        return executor.awaitTermination(timeout, unit) && isDone();
+    }
+
+    /**
+     * Stops the warm-up, batches which have not started yet are skipped
+     */
+    @Override
+    public void close() {
+        executor.shutdownNow();
+        try {
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
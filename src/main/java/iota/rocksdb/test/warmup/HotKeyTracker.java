@@ -0,0 +1,139 @@
+package iota.rocksdb.test.warmup;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Remembers keys which were read recently, per column family, so they can be loaded again after a restart.
+ *
+ * <p>
+ *     Every column family has a lock-free, direct-mapped table of keys, like the {@link iota.rocksdb.test.persist.HashPool}.
+ *     A read key replaces whatever key was in its slot, so keys which are read often are almost always present
+ *     while memory use stays bounded by the capacity.
+ * </p>
+ */
+public class HotKeyTracker {
+
+    private static final int FILE_VERSION = 1;
+
+    private final Map<String, AtomicReferenceArray<byte[]>> columnFamilies = new ConcurrentHashMap<>();
+    private final int size;
+    private final int mask;
+
+    /**
+     * @param capacity The maximum amount of keys kept per column family, rounded up to a power of two
+     */
+    public HotKeyTracker(int capacity) {
+        if (capacity <= 0 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("Invalid tracker capacity: " + capacity);
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size <<= 1;
+        }
+        this.size = size;
+        this.mask = size - 1;
+    }
+
+    /**
+     * Marks a key as read
+     *
+     * @param columnFamily The name of the column family the key was read from
+     * @param key The key
+     */
+    public void record(String columnFamily, byte[] key) {
+        AtomicReferenceArray<byte[]> slots = columnFamilies.get(columnFamily);
+        if (slots == null) {
+            slots = columnFamilies.computeIfAbsent(columnFamily, name -> new AtomicReferenceArray<>(size));
+        }
+        int code = Arrays.hashCode(key);
+        slots.lazySet((code ^ (code >>> 16)) & mask, key);
+    }
+
+    /**
+     * @return The tracked keys of every column family
+     */
+    public Map<String, List<byte[]>> snapshot() {
+        Map<String, List<byte[]>> keys = new LinkedHashMap<>();
+        for (Map.Entry<String, AtomicReferenceArray<byte[]>> entry : columnFamilies.entrySet()) {
+            AtomicReferenceArray<byte[]> slots = entry.getValue();
+            List<byte[]> list = new ArrayList<>();
+            for (int i = 0; i < slots.length(); i++) {
+                byte[] key = slots.get(i);
+                if (key != null) {
+                    list.add(key);
+                }
+            }
+            keys.put(entry.getKey(), list);
+        }
+        return keys;
+    }
+
+    /**
+     * Writes keys to a file. The file is replaced at once, so a crash never leaves half a file behind.
+     *
+     * @param file The file to write to
+     * @param keys The keys of every column family
+     * @throws IOException when writing failed
+     */
+    public static void write(Path file, Map<String, List<byte[]>> keys) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            out.writeInt(FILE_VERSION);
+            out.writeInt(keys.size());
+            for (Map.Entry<String, List<byte[]>> entry : keys.entrySet()) {
+                out.writeUTF(entry.getKey());
+                out.writeInt(entry.getValue().size());
+                for (byte[] key : entry.getValue()) {
+                    out.writeShort(key.length);
+                    out.write(key);
+                }
+            }
+        }
+        // The temporary file is a sibling, so the rename stays on one file system and can be atomic
+        Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Reads keys written by {@link #write(Path, Map)}
+     *
+     * @param file The file to read
+     * @return The keys of every column family
+     * @throws IOException when the file could not be read or has an unknown version
+     */
+    public static Map<String, List<byte[]>> read(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            int version = in.readInt();
+            if (version != FILE_VERSION) {
+                throw new IOException("Unknown hot key file version: " + version);
+            }
+            int columnFamilyCount = in.readInt();
+            Map<String, List<byte[]>> keys = new LinkedHashMap<>();
+            for (int i = 0; i < columnFamilyCount; i++) {
+                String name = in.readUTF();
+                int count = in.readInt();
+                List<byte[]> list = new ArrayList<>(count);
+                for (int j = 0; j < count; j++) {
+                    byte[] key = new byte[in.readUnsignedShort()];
+                    in.readFully(key);
+                    list.add(key);
+                }
+                keys.put(name, list);
+            }
+            return keys;
+        }
+    }
+}
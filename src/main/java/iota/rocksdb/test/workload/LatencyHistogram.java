@@ -0,0 +1,118 @@
+package iota.rocksdb.test.workload;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counts latencies in buckets which grow with the latency, so the memory used is fixed and every percentile is
+ * accurate to about 3%. Recording is lock free and can be done by many threads.
+ *
+ * <p>
+ *     Latencies below {@value #LINEAR_LIMIT} microseconds have a bucket each. Above that every power of two is split
+ *     into {@value #SUB_BUCKETS} buckets of equal width.
+ * </p>
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int LINEAR_LIMIT = 2 * SUB_BUCKETS;
+    private static final int BUCKETS = LINEAR_LIMIT + (Long.SIZE - SUB_BUCKET_BITS - 2) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    static int bucketOf(long micros) {
+        if (micros < LINEAR_LIMIT) {
+            return (int) Math.max(0, micros);
+        }
+        int shift = Long.SIZE - 1 - Long.numberOfLeadingZeros(micros) - SUB_BUCKET_BITS;
+        return LINEAR_LIMIT + (shift - 1) * SUB_BUCKETS + (int) ((micros >>> shift) - SUB_BUCKETS);
+    }
+
+    /**
+     * @return The highest latency counted in a bucket
+     */
+    static long highestOf(int bucket) {
+        if (bucket < LINEAR_LIMIT) {
+            return bucket;
+        }
+        int shift = (bucket - LINEAR_LIMIT) / SUB_BUCKETS + 1;
+        long subBucket = (bucket - LINEAR_LIMIT) % SUB_BUCKETS + SUB_BUCKETS;
+        return ((subBucket + 1) << shift) - 1;
+    }
+
+    /**
+     * @param micros A latency in microseconds
+     */
+    public void record(long micros) {
+        counts.incrementAndGet(bucketOf(micros));
+        count.incrementAndGet();
+        max.accumulateAndGet(micros, Math::max);
+    }
+
+    /**
+     * @return The amount of recorded latencies
+     */
+    public long getCount() {
+        return count.get();
+    }
+
+    /**
+     * @return The highest recorded latency in microseconds, exact
+     */
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * @param percentile Between 0 and 100, like 99.9
+     * @return The latency in microseconds which this percentage of the recorded latencies doesn't exceed,
+     *         0 when nothing was recorded
+     */
+    public long getPercentile(double percentile) {
+        long total = count.get();
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(total * percentile / 100));
+        long seen = 0;
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            seen += counts.get(bucket);
+            if (seen >= rank) {
+                // The bucket bound can be above the highest latency
+                return Math.min(highestOf(bucket), getMax());
+            }
+        }
+        return getMax();
+    }
+
+    /**
+     * Moves all recorded latencies into a new histogram, this histogram starts counting from zero again.
+     * Latencies recorded while moving end up in either histogram.
+     *
+     * @return The latencies recorded since the previous call
+     */
+    public LatencyHistogram snapshotAndReset() {
+        LatencyHistogram snapshot = new LatencyHistogram();
+        long moved = 0;
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            long bucketCount = counts.getAndSet(bucket, 0);
+            if (bucketCount > 0) {
+                snapshot.counts.set(bucket, bucketCount);
+                moved += bucketCount;
+            }
+        }
+        count.addAndGet(-moved);
+        snapshot.count.set(moved);
+        snapshot.max.set(max.getAndSet(0));
+        return snapshot;
+    }
+
+    @Override
+    public String toString() {
+        return "count=" + getCount() + ", p50=" + getPercentile(50) + ", p95=" + getPercentile(95) + ", p99="
+                + getPercentile(99) + ", p99.9=" + getPercentile(99.9) + ", max=" + getMax() + " (us)";
+    }
+}
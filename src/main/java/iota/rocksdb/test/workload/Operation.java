@@ -0,0 +1,39 @@
+package iota.rocksdb.test.workload;
+
+/**
+ * The operations a workload mixes, with the name of their weight in a {@link WorkloadSpec}.
+ */
+public enum Operation {
+    /**
+     * Loads a stored transaction
+     */
+    READ("mix.read"),
+
+    /**
+     * Saves a new transaction
+     */
+    WRITE("mix.write"),
+
+    /**
+     * Checks whether a stored transaction may exist
+     */
+    EXISTS("mix.exists"),
+
+    /**
+     * Reads transactions in key order, starting at a stored transaction
+     */
+    SCAN("mix.scan");
+
+    private final String property;
+
+    Operation(String property) {
+        this.property = property;
+    }
+
+    /**
+     * @return The property holding the weight of this operation in the mix
+     */
+    public String getProperty() {
+        return property;
+    }
+}
@@ -0,0 +1,315 @@
+package iota.rocksdb.test.workload;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import org.rocksdb.RocksDBException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import iota.rocksdb.test.App;
+import iota.rocksdb.test.RocksDBPersistenceProvider;
+import iota.rocksdb.test.Transaction;
+import iota.rocksdb.test.persist.Hash;
+import iota.rocksdb.test.persist.Indexable;
+import iota.rocksdb.test.persist.Persistable;
+import iota.rocksdb.test.util.Pair;
+import iota.rocksdb.test.util.TransactionTestUtils;
+
+/**
+ * Runs a {@link WorkloadSpec} against a {@link RocksDBPersistenceProvider} and reports throughput and latency
+ * percentiles of every operation per interval, together with the compaction debt of the database. Comparing
+ * intervals shows how the database degrades while compaction falls behind during long runs.
+ *
+ * <p>
+ *     With a target rate every client starts its operations on a fixed schedule. Latencies are measured from the
+ *     scheduled start, so an operation that waits for a slow one is counted as slow too. Without a rate every client
+ *     runs its next operation as soon as the previous one finished.
+ * </p>
+ */
+public class WorkloadDriver {
+
+    private static final Logger log = LoggerFactory.getLogger(WorkloadDriver.class);
+
+    private static final int PRELOAD_BATCH_SIZE = 1000;
+    private static final int KEY_ATTEMPTS = 8;
+    private static final double[] PERCENTILES = {50, 95, 99, 99.9};
+
+    private final WorkloadSpec spec;
+    private final Operation[] operations;
+    private final int[] cumulativeWeights;
+
+    /**
+     * The most recently written keys, a ring of {@link WorkloadSpec#getKeyCapacity()} entries
+     */
+    private final AtomicReferenceArray<Hash> keys;
+    private final AtomicLong written = new AtomicLong();
+
+    private final Map<Operation, LatencyHistogram> intervalLatencies = new EnumMap<>(Operation.class);
+    private final Map<Operation, LatencyHistogram> totalLatencies = new EnumMap<>(Operation.class);
+    private final Map<Operation, LongAdder> errors = new EnumMap<>(Operation.class);
+
+    private RocksDBPersistenceProvider provider;
+    private volatile boolean stopped;
+    private long startNanos;
+    private long lastReportNanos;
+
+    /**
+     * @param spec The workload to run
+     */
+    public WorkloadDriver(WorkloadSpec spec) {
+        this.spec = spec;
+        List<Operation> mixed = new ArrayList<>();
+        for (Operation operation : Operation.values()) {
+            if (spec.getWeight(operation) > 0) {
+                mixed.add(operation);
+            }
+        }
+        operations = mixed.toArray(new Operation[0]);
+        cumulativeWeights = new int[operations.length];
+        int total = 0;
+        for (int i = 0; i < operations.length; i++) {
+            total += spec.getWeight(operations[i]);
+            cumulativeWeights[i] = total;
+        }
+
+        keys = new AtomicReferenceArray<>(spec.getKeyCapacity());
+        for (Operation operation : operations) {
+            intervalLatencies.put(operation, new LatencyHistogram());
+            totalLatencies.put(operation, new LatencyHistogram());
+            errors.put(operation, new LongAdder());
+        }
+    }
+
+    /**
+     * Opens the database, preloads it, runs the workload until its duration passed or {@link #stop()} was called,
+     * and shuts the database down.
+     *
+     * @return The totals of the run
+     * @throws Exception when the database can't be opened or preloaded
+     */
+    public WorkloadResult run() throws Exception {
+        log.info("Running {}", spec);
+        provider = new RocksDBPersistenceProvider(spec.getDbPath(), spec.getLogPath(), spec.getConfigPath(),
+                spec.getCacheSize(), spec.getProfile(), App.COLUMN_FAMILIES,
+                new AbstractMap.SimpleEntry<>("transaction-metadata", Transaction.class));
+        provider.init();
+
+        ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "workload-reporter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            preload();
+
+            startNanos = System.nanoTime();
+            lastReportNanos = startNanos;
+            long deadlineNanos = startNanos + TimeUnit.MILLISECONDS.toNanos(spec.getDurationMillis());
+            reporter.scheduleAtFixedRate(this::report, spec.getReportIntervalMillis(),
+                    spec.getReportIntervalMillis(), TimeUnit.MILLISECONDS);
+
+            List<Thread> clients = new ArrayList<>(spec.getThreads());
+            for (int i = 0; i < spec.getThreads(); i++) {
+                int client = i;
+                Thread thread = new Thread(() -> runClient(client, deadlineNanos), "workload-client-" + i);
+                thread.start();
+                clients.add(thread);
+            }
+            for (Thread client : clients) {
+                client.join();
+            }
+            long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+
+            reporter.shutdown();
+            reporter.awaitTermination(10, TimeUnit.SECONDS);
+            // The last, partial interval
+            report();
+
+            Map<Operation, Long> errorCounts = new EnumMap<>(Operation.class);
+            for (Map.Entry<Operation, LongAdder> entry : errors.entrySet()) {
+                errorCounts.put(entry.getKey(), entry.getValue().sum());
+            }
+            WorkloadResult result = new WorkloadResult(new EnumMap<>(totalLatencies), errorCounts, elapsedMillis);
+            log.info("Finished: {}", result);
+            return result;
+        } finally {
+            reporter.shutdownNow();
+            provider.shutdown();
+        }
+    }
+
+    /**
+     * Lets the clients finish their current operation and ends the run
+     */
+    public void stop() {
+        stopped = true;
+    }
+
+    private void preload() throws Exception {
+        if (spec.getPreload() == 0) {
+            return;
+        }
+        log.info("Preloading {} transactions", spec.getPreload());
+        List<Pair<Indexable, Persistable>> batch = new ArrayList<>(PRELOAD_BATCH_SIZE);
+        for (int i = 0; i < spec.getPreload() && !stopped; i++) {
+            batch.add(new Pair<>(TransactionTestUtils.getTransactionHash(), TransactionTestUtils.getTransaction()));
+            if (batch.size() == PRELOAD_BATCH_SIZE || i == spec.getPreload() - 1) {
+                provider.saveBatch(batch);
+                for (Pair<Indexable, Persistable> saved : batch) {
+                    publish((Hash) saved.low);
+                }
+                batch.clear();
+            }
+        }
+    }
+
+    private void runClient(int client, long deadlineNanos) {
+        SplittableRandom random = new SplittableRandom(client);
+        long intervalNanos = spec.getRate() > 0 ? (long) (spec.getThreads() * 1e9 / spec.getRate()) : 0;
+        // Spread the schedules of the clients over one interval
+        long scheduled = startNanos + intervalNanos * client / spec.getThreads();
+
+        while (!stopped) {
+            Operation operation = nextOperation(random);
+            Transaction transaction = null;
+            Hash hash = null;
+            if (operation == Operation.WRITE) {
+                // Generated before the operation starts, only counted when the client is behind its schedule
+                transaction = TransactionTestUtils.getTransaction();
+                hash = TransactionTestUtils.getTransactionHash();
+            }
+
+            long begin;
+            if (intervalNanos > 0) {
+                long now = System.nanoTime();
+                if (scheduled > now) {
+                    LockSupport.parkNanos(scheduled - now);
+                }
+                begin = scheduled;
+                scheduled += intervalNanos;
+            } else {
+                begin = System.nanoTime();
+            }
+            if (begin >= deadlineNanos || System.nanoTime() >= deadlineNanos) {
+                return;
+            }
+
+            try {
+                execute(operation, random, transaction, hash);
+                long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - begin);
+                intervalLatencies.get(operation).record(micros);
+                totalLatencies.get(operation).record(micros);
+            } catch (Exception e) {
+                errors.get(operation).increment();
+                if (errors.get(operation).sum() == 1) {
+                    log.warn("{} failed, only the first failure is logged", operation, e);
+                }
+            }
+        }
+    }
+
+    private Operation nextOperation(SplittableRandom random) {
+        int weight = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (weight < cumulativeWeights[i]) {
+                return operations[i];
+            }
+        }
+        return operations[operations.length - 1];
+    }
+
+    private void execute(Operation operation, SplittableRandom random, Transaction transaction, Hash hash)
+            throws Exception {
+        switch (operation) {
+            case READ:
+                provider.get(Transaction.class, nextKey(random));
+                break;
+            case WRITE:
+                provider.save(transaction, hash);
+                publish(hash);
+                break;
+            case EXISTS:
+                provider.mayExist(Transaction.class, nextKey(random));
+                break;
+            case SCAN:
+                provider.scan(Transaction.class, nextKey(random), spec.getScanLength());
+                break;
+            default:
+                throw new IllegalStateException("Unknown operation " + operation);
+        }
+    }
+
+    /**
+     * Makes a stored key available to reads
+     */
+    private void publish(Hash hash) {
+        long position = written.getAndIncrement();
+        keys.set((int) (position % keys.length()), hash);
+    }
+
+    /**
+     * @return A written key, chosen by the key distribution. A random key when nothing was written yet.
+     */
+    private Hash nextKey(SplittableRandom random) {
+        long newest = written.get();
+        long available = Math.min(newest, keys.length());
+        for (int attempt = 0; attempt < KEY_ATTEMPTS && available > 0; attempt++) {
+            long age;
+            if (spec.getKeyDistribution() == WorkloadSpec.KeyDistribution.HOTSET
+                    && random.nextInt(100) < spec.getHotAccessPercent()) {
+                age = random.nextLong(Math.max(1, available * spec.getHotSetPercent() / 100));
+            } else {
+                age = random.nextLong(available);
+            }
+            // A writer may not have published its key yet
+            Hash key = keys.get((int) ((newest - 1 - age) % keys.length()));
+            if (key != null) {
+                return key;
+            }
+        }
+        return TransactionTestUtils.getTransactionHash();
+    }
+
+    private void report() {
+        long now = System.nanoTime();
+        double seconds = (now - lastReportNanos) / 1e9;
+        long elapsed = TimeUnit.NANOSECONDS.toSeconds(now - startNanos);
+        lastReportNanos = now;
+        if (seconds <= 0) {
+            return;
+        }
+
+        for (Operation operation : operations) {
+            LatencyHistogram interval = intervalLatencies.get(operation).snapshotAndReset();
+            StringBuilder percentiles = new StringBuilder();
+            for (double percentile : PERCENTILES) {
+                percentiles.append(" p").append(percentile == (long) percentile
+                        ? String.valueOf((long) percentile) : String.valueOf(percentile))
+                        .append('=').append(interval.getPercentile(percentile));
+            }
+            log.info(String.format("%6ds %-6s %10.1f ops/s%s max=%d us, errors=%d", elapsed, operation,
+                    interval.getCount() / seconds, percentiles, interval.getMax(), errors.get(operation).sum()));
+        }
+
+        try {
+            log.info(String.format("%6ds compaction: pending=%d bytes, running=%d, write stopped=%d", elapsed,
+                    provider.getLongProperty(Transaction.class, "rocksdb.estimate-pending-compaction-bytes"),
+                    provider.getLongProperty(Transaction.class, "rocksdb.num-running-compactions"),
+                    provider.getLongProperty(Transaction.class, "rocksdb.is-write-stopped")));
+        } catch (RocksDBException e) {
+            log.warn("Unable to read the compaction state: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package iota.rocksdb.test.workload;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * The totals of a finished workload run.
+ */
+public class WorkloadResult {
+
+    public final Map<Operation, LatencyHistogram> latencies;
+    public final Map<Operation, Long> errors;
+    public final long elapsedMillis;
+
+    /**
+     * @param latencies The latency of every completed operation, by operation
+     * @param errors The amount of failed operations, by operation
+     * @param elapsedMillis How long the operations ran, without preloading
+     */
+    public WorkloadResult(Map<Operation, LatencyHistogram> latencies, Map<Operation, Long> errors,
+            long elapsedMillis) {
+        this.latencies = Collections.unmodifiableMap(latencies);
+        this.errors = Collections.unmodifiableMap(errors);
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    /**
+     * @param operation An operation
+     * @return The average completed operations per second over the whole run
+     */
+    public double getThroughput(Operation operation) {
+        return elapsedMillis == 0 ? 0 : latencies.get(operation).getCount() * 1000.0 / elapsedMillis;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("WorkloadResult [elapsedMillis=").append(elapsedMillis);
+        for (Map.Entry<Operation, LatencyHistogram> entry : latencies.entrySet()) {
+            builder.append(", ").append(entry.getKey()).append(" {").append(String.format("%.1f ops/s, ",
+                    getThroughput(entry.getKey()))).append(entry.getValue()).append(", errors=")
+                    .append(errors.get(entry.getKey())).append('}');
+        }
+        return builder.append(']').toString();
+    }
+}
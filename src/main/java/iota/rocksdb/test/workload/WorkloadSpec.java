@@ -0,0 +1,268 @@
+package iota.rocksdb.test.workload;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import iota.rocksdb.test.WorkloadProfile;
+
+/**
+ * What a {@link WorkloadDriver} runs, read from a properties file. Every property is optional:
+ *
+ * <pre>
+ * db.path=workload/db             # where the database is stored
+ * log.path=workload/log           # where RocksDB writes its logs
+ * config.path=                    # a RocksDB configuration file, read by the provider
+ * profile=DEFAULT                 # a WorkloadProfile
+ * cache.size=0                    # block cache in KB, 0 for the size of the profile
+ *
+ * mix.read=60                     # the weight of every operation
+ * mix.write=30
+ * mix.exists=5
+ * mix.scan=5
+ * scan.length=100                 # transactions read by a scan
+ *
+ * threads=8                       # the amount of clients
+ * rate=0                          # operations per second of all clients together, 0 for a closed loop
+ * duration=1h                     # how long to run, in ms, s, m or h
+ * report.interval=10s             # how often throughput and latencies are reported
+ *
+ * preload=100000                  # transactions written before measuring
+ * keys.capacity=1000000           # the most recent written keys which reads choose from
+ * keys.distribution=uniform       # uniform, or hotset to favour recently written keys
+ * keys.hotSetPercent=10           # the part of the keys which is hot
+ * keys.hotAccessPercent=90        # the part of the reads which goes to hot keys
+ * </pre>
+ */
+public class WorkloadSpec {
+
+    /**
+     * How reads choose one of the written keys
+     */
+    public enum KeyDistribution {
+        /**
+         * Every written key is equally likely
+         */
+        UNIFORM,
+
+        /**
+         * Most reads go to the most recently written keys
+         */
+        HOTSET
+    }
+
+    private final String dbPath;
+    private final String logPath;
+    private final String configPath;
+    private final WorkloadProfile profile;
+    private final int cacheSize;
+
+    private final Map<Operation, Integer> mix = new EnumMap<>(Operation.class);
+    private final int scanLength;
+
+    private final int threads;
+    private final double rate;
+    private final long durationMillis;
+    private final long reportIntervalMillis;
+
+    private final int preload;
+    private final int keyCapacity;
+    private final KeyDistribution keyDistribution;
+    private final int hotSetPercent;
+    private final int hotAccessPercent;
+
+    /**
+     * @param properties The workload, missing properties get their default
+     * @throws IllegalArgumentException when a property has an invalid value
+     */
+    public WorkloadSpec(Properties properties) {
+        dbPath = properties.getProperty("db.path", "workload/db");
+        logPath = properties.getProperty("log.path", "workload/log");
+        String config = properties.getProperty("config.path", "").trim();
+        configPath = config.isEmpty() ? null : config;
+        profile = WorkloadProfile.valueOf(
+                properties.getProperty("profile", WorkloadProfile.DEFAULT.name()).trim().toUpperCase(Locale.ROOT));
+        cacheSize = intProperty(properties, "cache.size", 0, 0);
+
+        int totalWeight = 0;
+        for (Operation operation : Operation.values()) {
+            int weight = intProperty(properties, operation.getProperty(), defaultWeight(operation), 0);
+            mix.put(operation, weight);
+            totalWeight += weight;
+        }
+        if (totalWeight == 0) {
+            throw new IllegalArgumentException("The operation mix needs at least one operation");
+        }
+        scanLength = intProperty(properties, "scan.length", 100, 1);
+
+        threads = intProperty(properties, "threads", 8, 1);
+        rate = Double.parseDouble(properties.getProperty("rate", "0").trim());
+        if (rate < 0) {
+            throw new IllegalArgumentException("rate can't be negative: " + rate);
+        }
+        durationMillis = parseDuration(properties.getProperty("duration", "1h"));
+        reportIntervalMillis = parseDuration(properties.getProperty("report.interval", "10s"));
+
+        preload = intProperty(properties, "preload", 100_000, 0);
+        keyCapacity = intProperty(properties, "keys.capacity", 1_000_000, 1);
+        keyDistribution = KeyDistribution.valueOf(
+                properties.getProperty("keys.distribution", "uniform").trim().toUpperCase(Locale.ROOT));
+        hotSetPercent = percentProperty(properties, "keys.hotSetPercent", 10);
+        hotAccessPercent = percentProperty(properties, "keys.hotAccessPercent", 90);
+    }
+
+    /**
+     * @param file A properties file
+     * @return The workload of the file
+     * @throws IOException when the file can't be read
+     */
+    public static WorkloadSpec load(File file) throws IOException {
+        Properties properties = new Properties();
+        try (InputStream input = new FileInputStream(file)) {
+            properties.load(input);
+        }
+        return new WorkloadSpec(properties);
+    }
+
+    private static int defaultWeight(Operation operation) {
+        switch (operation) {
+            case READ:
+                return 60;
+            case WRITE:
+                return 30;
+            default:
+                return 5;
+        }
+    }
+
+    private static int intProperty(Properties properties, String name, int defaultValue, int minimum) {
+        String value = properties.getProperty(name);
+        int parsed = value == null ? defaultValue : Integer.parseInt(value.trim());
+        if (parsed < minimum) {
+            throw new IllegalArgumentException(name + " must be at least " + minimum + ": " + parsed);
+        }
+        return parsed;
+    }
+
+    private static int percentProperty(Properties properties, String name, int defaultValue) {
+        int percent = intProperty(properties, name, defaultValue, 0);
+        if (percent > 100) {
+            throw new IllegalArgumentException(name + " is a percentage: " + percent);
+        }
+        return percent;
+    }
+
+    /**
+     * @param value A number with a unit of <tt>ms</tt>, <tt>s</tt>, <tt>m</tt> or <tt>h</tt>, seconds without unit
+     * @return The duration in milliseconds
+     */
+    static long parseDuration(String value) {
+        String duration = value.trim().toLowerCase(Locale.ROOT);
+        TimeUnit unit = TimeUnit.SECONDS;
+        String number = duration;
+        if (duration.endsWith("ms")) {
+            unit = TimeUnit.MILLISECONDS;
+            number = duration.substring(0, duration.length() - 2);
+        } else if (duration.endsWith("s")) {
+            number = duration.substring(0, duration.length() - 1);
+        } else if (duration.endsWith("m")) {
+            unit = TimeUnit.MINUTES;
+            number = duration.substring(0, duration.length() - 1);
+        } else if (duration.endsWith("h")) {
+            unit = TimeUnit.HOURS;
+            number = duration.substring(0, duration.length() - 1);
+        }
+        long millis = unit.toMillis(Long.parseLong(number.trim()));
+        if (millis <= 0) {
+            throw new IllegalArgumentException("Duration must be positive: " + value);
+        }
+        return millis;
+    }
+
+    public String getDbPath() {
+        return dbPath;
+    }
+
+    public String getLogPath() {
+        return logPath;
+    }
+
+    /**
+     * @return The RocksDB configuration file, <code>null</code> when there is none
+     */
+    public String getConfigPath() {
+        return configPath;
+    }
+
+    public WorkloadProfile getProfile() {
+        return profile;
+    }
+
+    public int getCacheSize() {
+        return cacheSize;
+    }
+
+    /**
+     * @param operation An operation
+     * @return The weight of the operation in the mix, 0 when it doesn't run
+     */
+    public int getWeight(Operation operation) {
+        return mix.get(operation);
+    }
+
+    public int getScanLength() {
+        return scanLength;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * @return The target operations per second of all threads together, 0 for a closed loop
+     */
+    public double getRate() {
+        return rate;
+    }
+
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+
+    public long getReportIntervalMillis() {
+        return reportIntervalMillis;
+    }
+
+    public int getPreload() {
+        return preload;
+    }
+
+    public int getKeyCapacity() {
+        return keyCapacity;
+    }
+
+    public KeyDistribution getKeyDistribution() {
+        return keyDistribution;
+    }
+
+    public int getHotSetPercent() {
+        return hotSetPercent;
+    }
+
+    public int getHotAccessPercent() {
+        return hotAccessPercent;
+    }
+
+    @Override
+    public String toString() {
+        return "WorkloadSpec [dbPath=" + dbPath + ", profile=" + profile + ", mix=" + mix + ", threads=" + threads
+                + ", rate=" + (rate == 0 ? "closed loop" : rate + "/s") + ", durationMillis=" + durationMillis
+                + ", preload=" + preload + ", keyDistribution=" + keyDistribution + "]";
+    }
+}
@@ -0,0 +1,58 @@
+package iota.rocksdb.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Collection;
+
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.results.format.ResultFormatFactory;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the JMH benchmarks of this project and writes the results as JSON.
+ *
+ * <p>
+ *     Benchmarks live next to the code they measure in the test sources, named <tt>*Benchmark</tt> so they are not
+ *     picked up as unit tests. Run them with:
+ *     <pre>
+ *     mvn test-compile exec:java -Dexec.mainClass=iota.rocksdb.benchmarks.BenchmarkRunner -Dexec.classpathScope=test -Dexec.args="[regex] [result file] [threads]"
+ *     </pre>
+ *     The threads are a comma separated list, like <tt>1,4,16</tt>. The benchmarks run once for every thread count
+ *     and all results end up in the same file, every result records its thread count.
+ * </p>
+ */
+public class BenchmarkRunner {
+
+    /**
+     * @param args optional benchmark include regex (defaults to all benchmarks), optional result file
+     *             (defaults to <tt>jmh-result.json</tt>) and optional thread counts (defaults to the annotations)
+     * @throws RunnerException when a benchmark fails to run
+     */
+    public static void main(String[] args) throws RunnerException {
+        String include = args.length > 0 ? args[0] : ".*Benchmark.*";
+        String result = args.length > 1 ? args[1] : "jmh-result.json";
+
+        if (args.length < 3) {
+            Options options = new OptionsBuilder()
+                    .include(include)
+                    .resultFormat(ResultFormatType.JSON)
+                    .result(result)
+                    .build();
+            new Runner(options).run();
+            return;
+        }
+
+        Collection<RunResult> results = new ArrayList<>();
+        for (String threads : args[2].split(",")) {
+            Options options = new OptionsBuilder()
+                    .include(include)
+                    .threads(Integer.parseInt(threads.trim()))
+                    .build();
+            results.addAll(new Runner(options).run());
+        }
+        ResultFormatFactory.getInstance(ResultFormatType.JSON, result).writeOut(results);
+    }
+}
@@ -0,0 +1,70 @@
+package iota.rocksdb.crypto;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import iota.rocksdb.test.util.TransactionTestUtils;
+
+/**
+ * Compares the reference {@link Curl} with {@link FastCurl}.
+ * Every operation hashes one full transaction on a single thread, so the score is transactions per second per core.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(1)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class CurlBenchmark {
+
+    @Param({"CURLP27", "CURLP81"})
+    public SpongeFactory.Mode mode;
+
+    private byte[] transaction;
+    private byte[] hash;
+    private Sponge reference;
+    private Sponge fast;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(1);
+        transaction = new byte[TransactionTestUtils.TRINARY_SIZE];
+        for (int i = 0; i < transaction.length; i++) {
+            transaction[i] = (byte) (random.nextInt(3) - 1);
+        }
+        hash = new byte[Sponge.HASH_LENGTH];
+        reference = new Curl(mode);
+        fast = new FastCurl(mode);
+    }
+
+    @Benchmark
+    public byte[] reference() {
+        return hash(reference);
+    }
+
+    @Benchmark
+    public byte[] fast() {
+        return hash(fast);
+    }
+
+    private byte[] hash(Sponge sponge) {
+        sponge.reset();
+        sponge.absorb(transaction, 0, transaction.length);
+        sponge.squeeze(hash, 0, hash.length);
+        return hash;
+    }
+}
@@ -0,0 +1,74 @@
+package iota.rocksdb.crypto;
+
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+import iota.rocksdb.test.persist.TransactionHash;
+import iota.rocksdb.test.util.TransactionTestUtils;
+
+/**
+ * Unit tests for the Curl sponge modes.
+ */
+public class CurlTest extends TestCase {
+
+    private static final Random RANDOM = new Random(42);
+
+    private static byte[][] randomTrits(int count, int length) {
+        byte[][] trits = new byte[count][length];
+        for (byte[] input : trits) {
+            for (int i = 0; i < length; i++) {
+                input[i] = (byte) (RANDOM.nextInt(3) - 1);
+            }
+        }
+        return trits;
+    }
+
+    public void testBatchHashesMatchSingleHashes() {
+        byte[][] transactions = randomTrits(Curl.BATCH_SIZE + 3, TransactionTestUtils.TRINARY_SIZE);
+        TransactionHash[] hashes = TransactionHash.calculate(transactions);
+
+        assertEquals(transactions.length, hashes.length);
+        for (int i = 0; i < transactions.length; i++) {
+            assertEquals(TransactionHash.calculate(SpongeFactory.Mode.CURLP81, transactions[i]), hashes[i]);
+        }
+    }
+
+    public void testPairSpongeMatchesCurlP81() {
+        byte[] trits = randomTrits(1, 2 * Sponge.HASH_LENGTH)[0];
+        byte[] expected = new byte[Sponge.HASH_LENGTH];
+        byte[] actual = new byte[Sponge.HASH_LENGTH];
+
+        Sponge curl = SpongeFactory.create(SpongeFactory.Mode.CURLP81);
+        curl.absorb(trits, 0, trits.length);
+        curl.squeeze(expected, 0, expected.length);
+
+        Sponge pair = SpongeFactory.create(SpongeFactory.Mode.BCURLT);
+        pair.absorb(trits, 0, trits.length);
+        pair.squeeze(actual, 0, actual.length);
+
+        assertTrue(java.util.Arrays.equals(expected, actual));
+    }
+
+    public void testFastCurlMatchesReference() {
+        byte[] trits = randomTrits(1, TransactionTestUtils.TRINARY_SIZE)[0];
+        for (SpongeFactory.Mode mode : new SpongeFactory.Mode[] {SpongeFactory.Mode.CURLP27, SpongeFactory.Mode.CURLP81}) {
+            byte[] expected = new byte[3 * Sponge.HASH_LENGTH];
+            byte[] actual = new byte[3 * Sponge.HASH_LENGTH];
+
+            Sponge reference = new Curl(mode);
+            reference.absorb(trits, 0, trits.length);
+            reference.squeeze(expected, 0, expected.length);
+
+            Sponge fast = new FastCurl(mode);
+            fast.absorb(trits, 0, trits.length);
+            fast.squeeze(actual, 0, actual.length);
+            assertTrue(mode.name(), java.util.Arrays.equals(expected, actual));
+
+            fast.reset();
+            fast.absorb(trits, 0, trits.length);
+            fast.squeeze(actual, 0, actual.length);
+            assertTrue(mode.name() + " after reset", java.util.Arrays.equals(expected, actual));
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package iota.rocksdb.crypto;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+import iota.rocksdb.test.util.Converter;
+
+/**
+ * Unit tests for the Kerl sponge and its trits/bytes conversion.
+ */
+public class KerlTest extends TestCase {
+
+    private static final Random RANDOM = new Random(7);
+
+    public void testOneAbsorb() {
+        byte[] trits = Converter.allocatingTritsFromTrytes("EMIDYNHBWMBCXVDEFOFWINXTERALUKYYPPHKP9JJFGJEIUY9MUDVNFZHMMWZUYUSWAIOWEVTHNWMHANBH");
+        Sponge kerl = SpongeFactory.create(SpongeFactory.Mode.KERL);
+        kerl.absorb(trits, 0, trits.length);
+        byte[] hash = new byte[Sponge.HASH_LENGTH];
+        kerl.squeeze(hash, 0, hash.length);
+        assertEquals("EJEAOOZYSAWFPZQESYDHZCGYNSTWXUMVJOVDWUNZJXDGWCLUFGIMZRMGCAZGKNPLBRLGUNYWKLJTYEAQX",
+                Converter.trytes(hash));
+    }
+
+    public void testMultiSqueezeAfterReset() {
+        byte[] trits = Converter.allocatingTritsFromTrytes("9MIDYNHBWMBCXVDEFOFWINXTERALUKYYPPHKP9JJFGJEIUY9MUDVNFZHMMWZUYUSWAIOWEVTHNWMHANBH");
+        Sponge kerl = SpongeFactory.create(SpongeFactory.Mode.KERL);
+        byte[] hash = new byte[2 * Sponge.HASH_LENGTH];
+        kerl.absorb(trits, 0, trits.length);
+        kerl.reset();
+        kerl.absorb(trits, 0, trits.length);
+        kerl.squeeze(hash, 0, hash.length);
+        assertEquals("G9JYBOMPUXHYHKSNRNMMSSZCSHOFYOYNZRSZMAAYWDYEIMVVOGKPJBVBM9TDPULSFUNMTVXRKFIDOHUXXVYDLFSZYZTWQYTE9SPYYWYTXJYQ9IFGYOLZXWZBKWZN9QOOTBQMWMUBLEWUEEASRHRTNIQWJQNDWRYLCA",
+                Converter.trytes(hash));
+    }
+
+    public void testConversionMatchesBigInteger() {
+        int[] words = new int[Kerl.INT_LENGTH];
+        byte[] trits = new byte[Sponge.HASH_LENGTH];
+        byte[] bytes = new byte[Kerl.BYTE_HASH_LENGTH];
+        byte[] roundTrip = new byte[Sponge.HASH_LENGTH];
+        for (int n = 0; n < 1000; n++) {
+            for (int i = 0; i < trits.length - 1; i++) {
+                trits[i] = (byte) (RANDOM.nextInt(3) - 1);
+            }
+            Kerl.tritsToBytes(trits, 0, bytes, words);
+            assertEquals(value(trits), new BigInteger(bytes));
+
+            Kerl.bytesToTrits(bytes, roundTrip, 0, words);
+            assertTrue(Arrays.equals(trits, roundTrip));
+
+            RANDOM.nextBytes(bytes);
+            Kerl.bytesToTrits(bytes, roundTrip, 0, words);
+            assertEquals(new BigInteger(bytes), value(roundTrip));
+        }
+    }
+
+    private static BigInteger value(byte[] trits) {
+        BigInteger value = BigInteger.ZERO;
+        for (int i = trits.length; i-- > 0; ) {
+            value = value.multiply(BigInteger.valueOf(3)).add(BigInteger.valueOf(trits[i]));
+        }
+        return value;
+    }
+}
@@ -0,0 +1,46 @@
+package iota.rocksdb.crypto;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import iota.rocksdb.test.util.TransactionTestUtils;
+
+/**
+ * Measures the nonce search of {@link PearlDiver} on a single thread.
+ * Every invocation tests 64 nonces, so the score is nonces per second per core.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(1)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class PearlDiverBenchmark {
+
+    private PearlDiver.Searcher searcher;
+
+    @Setup
+    public void setup() {
+        // A hash can never end with more than 243 zeros, so the search never stops
+        searcher = new PearlDiver.Searcher(TransactionTestUtils.getTransactionTrits(), Sponge.HASH_LENGTH);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(Curl.BATCH_SIZE)
+    public long nonces() {
+        return searcher.next();
+    }
+}
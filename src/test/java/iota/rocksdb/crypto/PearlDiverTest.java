@@ -0,0 +1,82 @@
+package iota.rocksdb.crypto;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.TestCase;
+
+import iota.rocksdb.test.persist.TransactionHash;
+import iota.rocksdb.test.util.TransactionTestUtils;
+
+/**
+ * Unit tests for the nonce search of {@link PearlDiver}.
+ */
+public class PearlDiverTest extends TestCase {
+
+    private static final int MIN_WEIGHT_MAGNITUDE = 9;
+
+    public void testFoundNonceSatisfiesMinWeightMagnitude() throws InterruptedException {
+        byte[] trits = TransactionTestUtils.getTransactionTrits();
+        PearlDiver pearlDiver = new PearlDiver();
+
+        assertTrue(pearlDiver.search(trits, MIN_WEIGHT_MAGNITUDE, 2));
+        TransactionHash hash = TransactionHash.calculate(SpongeFactory.Mode.CURLP81, trits);
+        assertTrue(hash.trailingZeros() >= MIN_WEIGHT_MAGNITUDE);
+    }
+
+    public void testCancelledSearchKeepsTransaction() throws InterruptedException {
+        byte[] trits = TransactionTestUtils.getTransactionTrits();
+        byte[] original = trits.clone();
+        PearlDiver pearlDiver = new PearlDiver();
+
+        AtomicBoolean found = new AtomicBoolean(true);
+        Thread search = new Thread(() -> {
+            try {
+                found.set(pearlDiver.search(trits, Sponge.HASH_LENGTH, 2));
+            } catch (InterruptedException ignored) {
+            }
+        });
+        search.start();
+        while (pearlDiver.runningSearches() == 0) {
+            Thread.sleep(1);
+        }
+        pearlDiver.cancel();
+        search.join(10_000);
+
+        assertFalse(search.isAlive());
+        assertFalse(found.get());
+        assertTrue(Arrays.equals(original, trits));
+    }
+
+    public void testCancelStopsConcurrentSearches() throws InterruptedException {
+        PearlDiver pearlDiver = new PearlDiver();
+
+        List<Thread> searches = new ArrayList<>();
+        AtomicInteger found = new AtomicInteger();
+        for (int i = 0; i < 2; i++) {
+            Thread search = new Thread(() -> {
+                try {
+                    if (pearlDiver.search(TransactionTestUtils.getTransactionTrits(), Sponge.HASH_LENGTH, 1)) {
+                        found.incrementAndGet();
+                    }
+                } catch (InterruptedException ignored) {
+                }
+            });
+            search.start();
+            searches.add(search);
+        }
+        while (pearlDiver.runningSearches() < searches.size()) {
+            Thread.sleep(1);
+        }
+        pearlDiver.cancel();
+        for (Thread search : searches) {
+            search.join(10_000);
+            assertFalse(search.isAlive());
+        }
+        assertEquals(0, found.get());
+        assertEquals(0, pearlDiver.runningSearches());
+    }
+}
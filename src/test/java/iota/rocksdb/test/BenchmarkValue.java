@@ -0,0 +1,56 @@
+package iota.rocksdb.test;
+
+import javax.naming.OperationNotSupportedException;
+
+import iota.rocksdb.test.persist.Persistable;
+
+/**
+ * A model of any size without metadata, so benchmarks can vary the size of stored values.
+ */
+public class BenchmarkValue implements Persistable {
+
+    private static final long serialVersionUID = 1L;
+
+    private byte[] bytes;
+
+    public BenchmarkValue() {
+    }
+
+    public BenchmarkValue(byte[] bytes) {
+        this.bytes = bytes;
+    }
+
+    @Override
+    public byte[] bytes() {
+        return bytes;
+    }
+
+    @Override
+    public void read(byte[] bytes) {
+        this.bytes = bytes;
+    }
+
+    @Override
+    public byte[] metadata() {
+        return new byte[0];
+    }
+
+    @Override
+    public void readMetadata(byte[] bytes) {
+    }
+
+    @Override
+    public boolean canMerge() {
+        return false;
+    }
+
+    @Override
+    public Persistable mergeInto(Persistable source) throws OperationNotSupportedException {
+        throw new OperationNotSupportedException("This object is not mergeable");
+    }
+
+    @Override
+    public boolean exists() {
+        return !(bytes == null || bytes.length == 0);
+    }
+}
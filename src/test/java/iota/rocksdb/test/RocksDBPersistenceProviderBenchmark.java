@@ -0,0 +1,250 @@
+package iota.rocksdb.test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import iota.rocksdb.test.persist.Hash;
+import iota.rocksdb.test.persist.HashFactory;
+import iota.rocksdb.test.persist.Indexable;
+import iota.rocksdb.test.persist.Persistable;
+import iota.rocksdb.test.util.Pair;
+
+/**
+ * Measures the operations of {@link RocksDBPersistenceProvider} on a database in a temporary directory,
+ * which is filled with {@link #dataSetSize} values before measuring.
+ *
+ * <p>
+ *     Keys are random hashes. With the <tt>hotset</tt> distribution {@value #HOT_ACCESS_PERCENT}% of the operations
+ *     go to {@value #HOT_SET_PERCENT}% of the keys, like reads of recent transactions. The thread count is set when
+ *     running, see {@link iota.rocksdb.benchmarks.BenchmarkRunner}.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class RocksDBPersistenceProviderBenchmark {
+
+    private static final int HOT_SET_PERCENT = 10;
+    private static final int HOT_ACCESS_PERCENT = 90;
+    private static final int BATCH_SIZE = 100;
+    private static final int SCAN_LENGTH = 100;
+    private static final int VALUE_POOL_SIZE = 1024;
+    private static final int MISSING_KEYS = 1024;
+
+    static final Map<String, Class<? extends Persistable>> COLUMN_FAMILIES =
+            Collections.singletonMap("value", BenchmarkValue.class);
+
+    @Param({"256", "1604", "8192"})
+    public int valueSize;
+
+    @Param({"uniform", "hotset"})
+    public String distribution;
+
+    @Param({"10000", "100000"})
+    public int dataSetSize;
+
+    private File directory;
+    private RocksDBPersistenceProvider provider;
+    private Hash[] keys;
+    private Hash[] missingKeys;
+    private BenchmarkValue[] values;
+    private int hotSetSize;
+
+    /**
+     * The random source of a benchmark thread
+     */
+    @State(Scope.Thread)
+    public static class Client {
+
+        private SplittableRandom random;
+
+        @Setup
+        public void setup() {
+            random = new SplittableRandom(Thread.currentThread().getId());
+        }
+    }
+
+    /**
+     * A database of its own, filled again before every measurement as clearing it empties it
+     */
+    @State(Scope.Benchmark)
+    public static class ClearState {
+
+        private File directory;
+        private RocksDBPersistenceProvider provider;
+
+        @Setup(Level.Trial)
+        public void open() throws Exception {
+            directory = Files.createTempDirectory("provider-clear").toFile();
+            provider = newProvider(directory);
+        }
+
+        @Setup(Level.Iteration)
+        public void fill(RocksDBPersistenceProviderBenchmark benchmark) throws Exception {
+            benchmark.fill(provider);
+        }
+
+        @TearDown(Level.Trial)
+        public void close() throws Exception {
+            provider.shutdown();
+            FileUtils.deleteDirectory(directory);
+        }
+    }
+
+    private static RocksDBPersistenceProvider newProvider(File directory) throws Exception {
+        RocksDBPersistenceProvider provider = new RocksDBPersistenceProvider(new File(directory, "db").getPath(),
+                new File(directory, "log").getPath(), 0, COLUMN_FAMILIES, null);
+        provider.init();
+        return provider;
+    }
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        Random random = new Random(1);
+        keys = randomHashes(random, dataSetSize);
+        missingKeys = randomHashes(random, MISSING_KEYS);
+        values = new BenchmarkValue[VALUE_POOL_SIZE];
+        for (int i = 0; i < values.length; i++) {
+            byte[] bytes = new byte[valueSize];
+            random.nextBytes(bytes);
+            values[i] = new BenchmarkValue(bytes);
+        }
+        hotSetSize = Math.max(1, dataSetSize * HOT_SET_PERCENT / 100);
+
+        directory = Files.createTempDirectory("provider-benchmark").toFile();
+        provider = newProvider(directory);
+        fill(provider);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        provider.shutdown();
+        FileUtils.deleteDirectory(directory);
+    }
+
+    private static Hash[] randomHashes(Random random, int count) {
+        Hash[] hashes = new Hash[count];
+        byte[] trits = new byte[Hash.SIZE_IN_TRITS];
+        for (int i = 0; i < count; i++) {
+            for (int j = 0; j < trits.length; j++) {
+                trits[j] = (byte) (random.nextInt(3) - 1);
+            }
+            hashes[i] = HashFactory.TRANSACTION.create(trits, 0);
+        }
+        return hashes;
+    }
+
+    private void fill(RocksDBPersistenceProvider target) throws Exception {
+        List<Pair<Indexable, Persistable>> batch = new ArrayList<>(1000);
+        for (int i = 0; i < keys.length; i++) {
+            batch.add(new Pair<>(keys[i], values[i % values.length]));
+            if (batch.size() == 1000 || i == keys.length - 1) {
+                target.saveBatch(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private Hash nextKey(SplittableRandom random) {
+        if ("hotset".equals(distribution) && random.nextInt(100) < HOT_ACCESS_PERCENT) {
+            return keys[random.nextInt(hotSetSize)];
+        }
+        return keys[random.nextInt(keys.length)];
+    }
+
+    private BenchmarkValue nextValue(SplittableRandom random) {
+        return values[random.nextInt(values.length)];
+    }
+
+    private List<Hash> nextKeys(SplittableRandom random, int count) {
+        List<Hash> batch = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            batch.add(nextKey(random));
+        }
+        return batch;
+    }
+
+    /**
+     * Overwrites a stored key, so the data set keeps its size
+     */
+    @Benchmark
+    public boolean save(Client client) throws Exception {
+        return provider.save(nextValue(client.random), nextKey(client.random));
+    }
+
+    @Benchmark
+    public boolean saveBatch(Client client) throws Exception {
+        List<Pair<Indexable, Persistable>> batch = new ArrayList<>(BATCH_SIZE);
+        for (Hash key : nextKeys(client.random, BATCH_SIZE)) {
+            batch.add(new Pair<>(key, nextValue(client.random)));
+        }
+        return provider.saveBatch(batch);
+    }
+
+    @Benchmark
+    public Persistable get(Client client) throws Exception {
+        return provider.get(BenchmarkValue.class, nextKey(client.random));
+    }
+
+    @Benchmark
+    public List<Persistable> getAll(Client client) throws Exception {
+        return provider.getAll(BenchmarkValue.class, nextKeys(client.random, BATCH_SIZE));
+    }
+
+    @Benchmark
+    public boolean mayExist(Client client) {
+        return provider.mayExist(BenchmarkValue.class, nextKey(client.random));
+    }
+
+    /**
+     * Checks keys which are not stored. The provider installs a bloom filter on every new column family, also with
+     * the DEFAULT profile of this database, which answers most of these checks without reading data blocks.
+     */
+    @Benchmark
+    public boolean mayExistMissing(Client client) {
+        return provider.mayExist(BenchmarkValue.class, missingKeys[client.random.nextInt(missingKeys.length)]);
+    }
+
+    @Benchmark
+    public List<Pair<Indexable, Persistable>> scan(Client client) throws Exception {
+        return provider.scan(BenchmarkValue.class, nextKey(client.random), SCAN_LENGTH);
+    }
+
+    /**
+     * Deletes the whole data set, every measurement is a single clear of a freshly filled database
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 1)
+    @Measurement(iterations = 5)
+    public long clear(ClearState state) throws Exception {
+        state.provider.clear(BenchmarkValue.class);
+        return state.provider.count(BenchmarkValue.class);
+    }
+}
@@ -0,0 +1,410 @@
+package iota.rocksdb.test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.FileUtils;
+import org.rocksdb.ColumnFamilyDescriptor;
+import org.rocksdb.ColumnFamilyHandle;
+import org.rocksdb.DBOptions;
+import org.rocksdb.MemoryUsageType;
+import org.rocksdb.Env;
+import org.rocksdb.Options;
+import org.rocksdb.OptionsUtil;
+import org.rocksdb.RocksDB;
+
+import junit.framework.TestCase;
+
+import iota.rocksdb.test.persist.Hash;
+import iota.rocksdb.test.persist.Indexable;
+import iota.rocksdb.test.persist.Persistable;
+import iota.rocksdb.test.throttle.WriteStallController;
+import iota.rocksdb.test.usage.ColumnFamilyUsage;
+import iota.rocksdb.test.usage.StorageUsage;
+import iota.rocksdb.test.util.Pair;
+import iota.rocksdb.test.util.TransactionTestUtils;
+import iota.rocksdb.test.warmup.CacheWarmer;
+
+/**
+ * Unit tests for {@link RocksDBPersistenceProvider}.
+ */
+public class RocksDBPersistenceProviderTest extends TestCase {
+
+    private File directory;
+    private RocksDBPersistenceProvider provider;
+
+    @Override
+    protected void setUp() throws Exception {
+        directory = Files.createTempDirectory("provider").toFile();
+        provider = newProvider();
+        provider.init();
+    }
+
+    private RocksDBPersistenceProvider newProvider() {
+        return new RocksDBPersistenceProvider(dbPath(), new File(directory, "log").getPath(), 1, App.COLUMN_FAMILIES,
+                new AbstractMap.SimpleEntry<>("transaction-metadata", Transaction.class));
+    }
+
+    private String dbPath() {
+        return new File(directory, "db").getPath();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        provider.shutdown();
+        FileUtils.deleteDirectory(directory);
+    }
+
+    private List<Hash> saveTransactions(int count) throws Exception {
+        List<Hash> hashes = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Hash hash = TransactionTestUtils.getTransactionHash();
+            provider.save(TransactionTestUtils.getTransaction(), hash);
+            hashes.add(hash);
+        }
+        return hashes;
+    }
+
+    public void testGetAllKeepsOrder() throws Exception {
+        List<Hash> hashes = saveTransactions(20);
+        Hash missing = TransactionTestUtils.getTransactionHash();
+        hashes.add(5, missing);
+
+        List<Persistable> models = provider.getAll(Transaction.class, hashes);
+        assertEquals(hashes.size(), models.size());
+        for (int i = 0; i < hashes.size(); i++) {
+            Transaction expected = (Transaction) provider.get(Transaction.class, hashes.get(i));
+            Transaction actual = (Transaction) models.get(i);
+            assertEquals(hashes.get(i) != missing, actual.exists());
+            assertEquals(expected.exists(), actual.exists());
+            assertEquals(expected.address, actual.address);
+        }
+    }
+
+    public void testAsyncMethods() throws Exception {
+        Hash hash = TransactionTestUtils.getTransactionHash();
+        Transaction transaction = TransactionTestUtils.getTransaction();
+
+        assertTrue(provider.saveAsync(transaction, hash).get(10, TimeUnit.SECONDS));
+        assertTrue(provider.mayExistAsync(Transaction.class, hash).get(10, TimeUnit.SECONDS));
+
+        Transaction stored = (Transaction) provider.getAsync(Transaction.class, hash).get(10, TimeUnit.SECONDS);
+        assertEquals(transaction.address, stored.address);
+
+        List<Hash> hashes = saveTransactions(10);
+        CompletableFuture<List<Persistable>> all = provider.getAllAsync(Transaction.class, hashes);
+        for (Persistable model : all.get(10, TimeUnit.SECONDS)) {
+            assertTrue(model.exists());
+        }
+        assertEquals(4, provider.getIoExecutor().getCompleted());
+    }
+
+    public void testKeepsPersistedColumnFamiliesAndOptions() throws Exception {
+        Hash hash = TransactionTestUtils.getTransactionHash();
+        provider.save(TransactionTestUtils.getTransaction(), hash);
+        provider.shutdown();
+
+        // Tune the transaction column family outside of the provider
+        List<ColumnFamilyDescriptor> descriptors = new ArrayList<>();
+        try (DBOptions options = new DBOptions()) {
+            OptionsUtil.loadLatestOptions(dbPath(), Env.getDefault(), options, descriptors);
+            descriptors.add(new ColumnFamilyDescriptor("legacy".getBytes()));
+            for (ColumnFamilyDescriptor descriptor : descriptors) {
+                if (new String(descriptor.getName()).equals("transaction")) {
+                    descriptor.getOptions().setWriteBufferSize(3 << 20);
+                }
+            }
+            options.setCreateMissingColumnFamilies(true);
+            List<ColumnFamilyHandle> handles = new ArrayList<>();
+            RocksDB db = RocksDB.open(options, dbPath(), descriptors, handles);
+            // The handles have to be closed before the database
+            handles.forEach(ColumnFamilyHandle::close);
+            db.close();
+        }
+
+        provider = newProvider();
+        provider.init();
+        assertTrue(provider.get(Transaction.class, hash).exists());
+        provider.shutdown();
+
+        try (Options options = new Options()) {
+            List<String> names = new ArrayList<>();
+            for (byte[] name : RocksDB.listColumnFamilies(options, dbPath())) {
+                names.add(new String(name));
+            }
+            assertTrue(names.contains("legacy"));
+            assertTrue(names.contains("transaction"));
+        }
+
+        descriptors.clear();
+        try (DBOptions options = new DBOptions()) {
+            OptionsUtil.loadLatestOptions(dbPath(), Env.getDefault(), options, descriptors);
+            for (ColumnFamilyDescriptor descriptor : descriptors) {
+                if (new String(descriptor.getName()).equals("transaction")) {
+                    assertEquals(3 << 20, descriptor.getOptions().writeBufferSize());
+                }
+            }
+        }
+
+        provider = newProvider();
+        provider.init();
+    }
+
+    public void testWarmsUpHotKeysAfterRestart() throws Exception {
+        List<Hash> hashes = saveTransactions(300);
+        provider.shutdown();
+
+        provider = newProvider().setCacheWarmUp(1024, 2);
+        provider.init();
+        assertNull(provider.getCacheWarmer());
+        for (Hash hash : hashes.subList(0, 50)) {
+            provider.get(Transaction.class, hash);
+        }
+        // Multi gets are hot reads too
+        provider.getAll(Transaction.class, hashes.subList(50, 75));
+        provider.getAllAsync(Transaction.class, hashes.subList(75, 100)).get();
+        provider.shutdown();
+
+        provider = newProvider().setCacheWarmUp(1024, 2);
+        provider.init();
+        CacheWarmer warmer = provider.getCacheWarmer();
+        assertNotNull(warmer);
+        assertTrue(warmer.await(10, TimeUnit.SECONDS));
+        // keys of the transaction and its metadata
+        assertTrue(warmer.getTotal() > 100 && warmer.getTotal() <= 200);
+        assertEquals(warmer.getTotal(), warmer.getLoaded());
+        assertEquals(1.0, warmer.getProgress());
+    }
+
+    public void testReadOnlyAndSecondaryInstances() throws Exception {
+        Hash before = TransactionTestUtils.getTransactionHash();
+        provider.save(TransactionTestUtils.getTransaction(), before);
+
+        RocksDBPersistenceProvider readOnly = newProvider().setOpenMode(OpenMode.READ_ONLY);
+        RocksDBPersistenceProvider secondary = newProvider()
+                .setSecondaryInstance(new File(directory, "secondary").getPath(), 0);
+        readOnly.init();
+        secondary.init();
+        try {
+            assertTrue(readOnly.get(Transaction.class, before).exists());
+            assertTrue(secondary.get(Transaction.class, before).exists());
+            try {
+                readOnly.save(TransactionTestUtils.getTransaction(), TransactionTestUtils.getTransactionHash());
+                fail("A read only database can't be written");
+            } catch (IllegalStateException e) {
+                // expected
+            }
+
+            Hash after = TransactionTestUtils.getTransactionHash();
+            provider.save(TransactionTestUtils.getTransaction(), after);
+            assertFalse(secondary.get(Transaction.class, after).exists());
+            secondary.catchUp();
+            assertTrue(secondary.get(Transaction.class, after).exists());
+        } finally {
+            readOnly.shutdown();
+            secondary.shutdown();
+        }
+    }
+
+    public void testPlacesColumnFamiliesOnTheirTier() throws Exception {
+        provider.shutdown();
+        FileUtils.deleteDirectory(directory);
+
+        String fast = new File(directory, "fast").getPath();
+        String slow = new File(directory, "slow").getPath();
+        provider = newProvider().addDataPath(fast, 1L << 30)
+                .addColumnFamilyPath("transaction-metadata", slow, 1L << 30);
+        provider.init();
+        saveTransactions(50);
+        provider.shutdown();
+
+        provider = newProvider().addDataPath(fast, 1L << 30)
+                .addColumnFamilyPath("transaction-metadata", slow, 1L << 30);
+        provider.init();
+        Map<String, Long> usage = provider.getTierUsage();
+        assertTrue(usage.get(fast) > 0);
+        assertTrue(usage.get(slow) > 0);
+        assertEquals(0L, (long) provider.getTierUsage("transaction").get(slow));
+        assertEquals(0L, (long) provider.getTierUsage("transaction-metadata").get(fast));
+    }
+
+    public void testThrottledWrites() throws Exception {
+        provider.shutdown();
+        provider = newProvider().setRateLimit(64L << 20).setWriteThrottling(0.5, 1000);
+        provider.init();
+
+        WriteStallController controller = provider.getWriteStallController();
+        assertNotNull(controller);
+        List<Hash> hashes = saveTransactions(20);
+        assertTrue(provider.get(Transaction.class, hashes.get(0)).exists());
+        // An idle database is far from a stall
+        assertTrue(controller.getPressure() < 0.5);
+        assertEquals(0, controller.getDelayMicros());
+        assertEquals(0, controller.getProbeFailures());
+    }
+
+    public void testProfilesAndOverridesArePersisted() throws Exception {
+        Hash hash = TransactionTestUtils.getTransactionHash();
+        provider.save(TransactionTestUtils.getTransaction(), hash);
+        provider.shutdown();
+
+        for (WorkloadProfile profile : WorkloadProfile.values()) {
+            provider = new RocksDBPersistenceProvider(dbPath(), new File(directory, "log").getPath(), null, 0,
+                    profile, App.COLUMN_FAMILIES,
+                    new AbstractMap.SimpleEntry<>("transaction-metadata", Transaction.class))
+                    .overrideColumnFamilyOption("max_write_buffer_number", "5")
+                    .overrideDbOption("max_background_jobs", "3");
+            provider.init();
+            assertTrue(profile.name(), provider.get(Transaction.class, hash).exists());
+            provider.shutdown();
+
+            List<ColumnFamilyDescriptor> descriptors = new ArrayList<>();
+            try (DBOptions options = new DBOptions()) {
+                OptionsUtil.loadLatestOptions(dbPath(), Env.getDefault(), options, descriptors);
+                assertEquals(3, options.maxBackgroundJobs());
+                for (ColumnFamilyDescriptor descriptor : descriptors) {
+                    if (new String(descriptor.getName()).equals("transaction")) {
+                        assertEquals(5, descriptor.getOptions().maxWriteBufferNumber());
+                        Properties expected = profile.getColumnFamilyOptions();
+                        if (expected.containsKey("write_buffer_size")) {
+                            assertEquals(Long.parseLong(expected.getProperty("write_buffer_size")),
+                                    descriptor.getOptions().writeBufferSize());
+                        }
+                    }
+                }
+            }
+        }
+        provider = newProvider();
+        provider.init();
+    }
+
+    public void testFindByPrefixMatchesFilteredScan() throws Exception {
+        provider.shutdown();
+        provider = newProvider().setPrefixLength(2);
+        provider.init();
+        List<Hash> hashes = saveTransactions(300);
+        // Half of the data comes from SST files
+        provider.shutdown();
+        provider = newProvider().setPrefixLength(2);
+        provider.init();
+        saveTransactions(300);
+
+        List<Pair<Indexable, Persistable>> all = provider.scan(Transaction.class, null, Integer.MAX_VALUE);
+        assertEquals(600, all.size());
+        for (int trytes : new int[] {0, 1, 2, 3, 4, 5, 7, 81}) {
+            String prefix = hashes.get(trytes).toString().substring(0, trytes);
+            List<Indexable> expected = new ArrayList<>();
+            for (Pair<Indexable, Persistable> model : all) {
+                if (model.low.toString().startsWith(prefix)) {
+                    expected.add(model.low);
+                }
+            }
+            assertFalse(prefix, expected.isEmpty());
+
+            List<Pair<Indexable, Persistable>> found = provider.findByPrefix(Transaction.class, prefix,
+                    Integer.MAX_VALUE);
+            assertEquals(prefix, expected.size(), found.size());
+            for (int i = 0; i < found.size(); i++) {
+                assertEquals(prefix, expected.get(i), found.get(i).low);
+                assertTrue(found.get(i).hi.exists());
+            }
+
+            List<Pair<Indexable, Persistable>> limited = provider.findByPrefix(Transaction.class, prefix, 1);
+            assertEquals(1, limited.size());
+            assertEquals(expected.get(0), limited.get(0).low);
+        }
+
+        try {
+            provider.findByPrefix(Transaction.class, "AB1", 10);
+            fail("Invalid trytes must be rejected");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    public void testCountsAreExact() throws Exception {
+        assertTrue(provider.hasExactCounts());
+        List<Hash> hashes = saveTransactions(50);
+        // Overwrites, also within a batch
+        provider.save(TransactionTestUtils.getTransaction(), hashes.get(0));
+        List<Pair<Indexable, Persistable>> batch = new ArrayList<>();
+        batch.add(new Pair<>(hashes.get(1), TransactionTestUtils.getTransaction()));
+        Hash added = TransactionTestUtils.getTransactionHash();
+        batch.add(new Pair<>(added, TransactionTestUtils.getTransaction()));
+        batch.add(new Pair<>(added, TransactionTestUtils.getTransaction()));
+        provider.saveBatch(batch);
+        assertEquals(51, provider.count(Transaction.class));
+
+        assertTrue(provider.delete(Transaction.class, hashes.get(2)));
+        assertFalse(provider.delete(Transaction.class, hashes.get(2)));
+        assertFalse(provider.get(Transaction.class, hashes.get(2)).exists());
+        assertEquals(50, provider.count(Transaction.class));
+
+        provider.shutdown();
+        provider = newProvider();
+        provider.init();
+        assertEquals(50, provider.count(Transaction.class));
+
+        provider.clear(Transaction.class);
+        assertEquals(0, provider.count(Transaction.class));
+        assertTrue(provider.scan(Transaction.class, null, 10).isEmpty());
+    }
+
+    public void testRebuildsCountsOfExistingDatabase() throws Exception {
+        provider.shutdown();
+        FileUtils.deleteDirectory(new File(dbPath()));
+
+        // A database written without counters
+        List<ColumnFamilyDescriptor> descriptors = new ArrayList<>();
+        descriptors.add(new ColumnFamilyDescriptor(RocksDB.DEFAULT_COLUMN_FAMILY));
+        descriptors.add(new ColumnFamilyDescriptor("transaction".getBytes()));
+        descriptors.add(new ColumnFamilyDescriptor("transaction-metadata".getBytes()));
+        List<ColumnFamilyHandle> handles = new ArrayList<>();
+        try (DBOptions options = new DBOptions().setCreateIfMissing(true).setCreateMissingColumnFamilies(true);
+                RocksDB db = RocksDB.open(options, dbPath(), descriptors, handles)) {
+            for (int i = 0; i < 30; i++) {
+                Transaction transaction = TransactionTestUtils.getTransaction();
+                db.put(handles.get(1), TransactionTestUtils.getTransactionHash().bytes(), transaction.bytes());
+            }
+            handles.forEach(ColumnFamilyHandle::close);
+        }
+
+        provider = newProvider();
+        provider.init();
+        assertFalse(provider.hasExactCounts());
+        Map<Class<?>, Long> counts = provider.rebuildCounts();
+        assertEquals(Long.valueOf(30), counts.get(Transaction.class));
+        assertTrue(provider.hasExactCounts());
+
+        saveTransactions(5);
+        assertEquals(35, provider.count(Transaction.class));
+    }
+
+    public void testReportsStorageUsage() throws Exception {
+        saveTransactions(200);
+        provider.shutdown();
+        provider = newProvider();
+        provider.init();
+        saveTransactions(10);
+
+        StorageUsage usage = provider.getStorageUsage();
+        ColumnFamilyUsage transactions = usage.columnFamilies.get("transaction");
+        assertNotNull(usage.toString(), transactions);
+        assertTrue(usage.columnFamilies.containsKey("transaction-metadata"));
+        // 200 transactions were flushed to L0, 10 are still in the memtable
+        assertTrue(transactions.toString(), transactions.sstBytesPerLevel[0] > 200 * Transaction.SIZE / 2);
+        assertTrue(transactions.memtableBytes > 0);
+        assertTrue(transactions.liveDataBytes > 0);
+        assertTrue(usage.walBytes > 0);
+        assertTrue(usage.sstFileManagerBytes >= transactions.getSstBytes());
+        assertTrue(usage.memory.get(MemoryUsageType.kMemTableTotal) >= transactions.memtableBytes);
+        assertEquals(usage.getDiskBytes(), provider.getPersistanceSize());
+    }
+}
@@ -0,0 +1,110 @@
+package iota.rocksdb.test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.rocksdb.TickerType;
+
+import junit.framework.TestCase;
+
+import iota.rocksdb.test.persist.Hash;
+import iota.rocksdb.test.persist.Indexable;
+import iota.rocksdb.test.persist.Persistable;
+import iota.rocksdb.test.util.Bytes;
+import iota.rocksdb.test.util.Pair;
+import iota.rocksdb.test.util.TransactionTestUtils;
+
+/**
+ * Unit tests for {@link ShardedPersistenceProvider}.
+ */
+public class ShardedPersistenceProviderTest extends TestCase {
+
+    private static final int SHARDS = 3;
+
+    private File directory;
+    private ShardedPersistenceProvider provider;
+
+    @Override
+    protected void setUp() throws Exception {
+        directory = Files.createTempDirectory("sharded").toFile();
+        List<String> paths = new ArrayList<>();
+        for (int i = 0; i < SHARDS; i++) {
+            paths.add(new File(directory, "disk-" + i).getPath());
+        }
+        provider = new ShardedPersistenceProvider(paths, new File(directory, "log").getPath(), 1,
+                App.COLUMN_FAMILIES, new AbstractMap.SimpleEntry<>("transaction-metadata", Transaction.class));
+        provider.init();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        provider.shutdown();
+        FileUtils.deleteDirectory(directory);
+    }
+
+    private List<Hash> saveBatch(int count) throws Exception {
+        List<Hash> hashes = new ArrayList<>(count);
+        List<Pair<Indexable, Persistable>> models = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Hash hash = TransactionTestUtils.getTransactionHash();
+            hashes.add(hash);
+            models.add(new Pair<>(hash, TransactionTestUtils.getTransaction()));
+        }
+        assertTrue(provider.saveBatch(models));
+        return hashes;
+    }
+
+    public void testRoutesAndReadsBack() throws Exception {
+        List<Hash> hashes = saveBatch(300);
+
+        int[] perShard = new int[SHARDS];
+        for (Hash hash : hashes) {
+            perShard[provider.shardOf(hash)]++;
+            assertTrue(provider.get(Transaction.class, hash).exists());
+            assertTrue(provider.getShards().get(provider.shardOf(hash)).get(Transaction.class, hash).exists());
+        }
+        for (int count : perShard) {
+            assertTrue(Arrays.toString(perShard), count > 0);
+        }
+
+        Hash missing = TransactionTestUtils.getTransactionHash();
+        List<Hash> lookup = new ArrayList<>(hashes);
+        lookup.add(17, missing);
+        List<Persistable> models = provider.getAll(Transaction.class, lookup);
+        for (int i = 0; i < lookup.size(); i++) {
+            assertEquals(lookup.get(i) != missing, models.get(i).exists());
+        }
+
+        assertEquals(300, provider.count(Transaction.class));
+        // A model and its metadata, plus the counter marker and a counter update per shard
+        assertEquals(2 * 300 + 2 * SHARDS, provider.getTickerCount(TickerType.NUMBER_KEYS_WRITTEN));
+    }
+
+    public void testScanMergesShardsInOrder() throws Exception {
+        List<Hash> hashes = saveBatch(200);
+        List<byte[]> sorted = new ArrayList<>();
+        for (Hash hash : hashes) {
+            sorted.add(hash.bytes());
+        }
+        sorted.sort(Bytes.BYTEWISE_COMPARATOR);
+
+        List<Pair<Indexable, Persistable>> all = provider.scan(Transaction.class, null, Integer.MAX_VALUE);
+        assertEquals(sorted.size(), all.size());
+        for (int i = 0; i < sorted.size(); i++) {
+            assertTrue(Arrays.equals(sorted.get(i), all.get(i).low.bytes()));
+            assertTrue(all.get(i).hi.exists());
+        }
+
+        // Page through with a limit, continuing after the last index of the previous page
+        List<Pair<Indexable, Persistable>> page = provider.scan(Transaction.class, all.get(50).low, 25);
+        assertEquals(25, page.size());
+        for (int i = 0; i < page.size(); i++) {
+            assertEquals(all.get(50 + i).low, page.get(i).low);
+        }
+    }
+}
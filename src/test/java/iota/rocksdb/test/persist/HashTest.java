@@ -0,0 +1,116 @@
+package iota.rocksdb.test.persist;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.TestCase;
+
+import iota.rocksdb.test.util.Converter;
+import iota.rocksdb.test.util.TransactionTestUtils;
+
+/**
+ * Unit tests for the {@link Hash} implementations.
+ */
+public class HashTest extends TestCase {
+
+    public void testTritsAndBytesConstructionAreEqual() {
+        Hash fromTrits = TransactionTestUtils.getTransactionHash();
+        Hash fromBytes = HashFactory.TRANSACTION.create(fromTrits.bytes(), 0, Hash.SIZE_IN_BYTES);
+        Hash fromTrytes = HashFactory.TRANSACTION.create(fromTrits.toString());
+
+        assertEquals(fromTrits, fromBytes);
+        assertEquals(fromTrits, fromTrytes);
+        assertEquals(fromTrits.hashCode(), fromBytes.hashCode());
+        assertTrue(Arrays.equals(fromTrits.trits(), fromBytes.trits()));
+        assertFalse(fromTrits.equals(TransactionTestUtils.getTransactionHash()));
+    }
+
+    public void testTrailingZeros() {
+        byte[] trits = TransactionTestUtils.getTransactionHash().trits();
+        for (int zeros : new int[] {0, 1, 3, 4, 9, 81, Hash.SIZE_IN_TRITS}) {
+            Arrays.fill(trits, Hash.SIZE_IN_TRITS - zeros, Hash.SIZE_IN_TRITS, (byte) 0);
+            if (zeros < Hash.SIZE_IN_TRITS) {
+                trits[Hash.SIZE_IN_TRITS - zeros - 1] = 1;
+            }
+            assertEquals(zeros, HashFactory.TRANSACTION.create(trits).trailingZeros());
+        }
+        assertEquals(Hash.SIZE_IN_TRITS, Hash.NULL_HASH.trailingZeros());
+    }
+
+    public void testReadOnlyOnce() {
+        Hash hash = new TransactionHash();
+        hash.read(Converter.allocateBytesForTrits(Hash.SIZE_IN_TRITS));
+        assertEquals(Hash.NULL_HASH, hash);
+        try {
+            hash.read(new byte[Hash.SIZE_IN_BYTES]);
+            fail("Expected an IllegalStateException");
+        } catch (IllegalStateException expected) {
+        }
+    }
+
+    public void testConcurrentReadsInitializeOnce() throws InterruptedException {
+        for (int round = 0; round < 100; round++) {
+            Hash hash = new TransactionHash();
+            CountDownLatch start = new CountDownLatch(1);
+            AtomicInteger failures = new AtomicInteger();
+            List<Thread> readers = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                byte[] bytes = TransactionTestUtils.getTransactionHash().bytes();
+                Thread reader = new Thread(() -> {
+                    try {
+                        start.await();
+                        hash.read(bytes);
+                    } catch (IllegalStateException e) {
+                        failures.incrementAndGet();
+                    } catch (InterruptedException ignored) {
+                    }
+                });
+                reader.start();
+                readers.add(reader);
+            }
+            start.countDown();
+            for (Thread reader : readers) {
+                reader.join();
+            }
+            assertEquals(readers.size() - 1, failures.get());
+        }
+    }
+
+    public void testInterningSharesInstances() {
+        Hash hash = TransactionTestUtils.getTransactionHash();
+        HashPool pool = HashFactory.enableInterning(16);
+        try {
+            Hash first = HashFactory.TRANSACTION.create(hash.bytes(), 0, Hash.SIZE_IN_BYTES);
+            Hash second = HashFactory.TRANSACTION.create(hash.toString());
+            assertSame(first, second);
+            assertEquals(1, pool.getHits());
+        } finally {
+            HashFactory.disableInterning();
+        }
+        assertNotSame(HashFactory.TRANSACTION.create(hash.bytes(), 0, Hash.SIZE_IN_BYTES),
+                HashFactory.TRANSACTION.create(hash.bytes(), 0, Hash.SIZE_IN_BYTES));
+    }
+
+    public void testCompareToMatchesUnsignedByteOrder() {
+        List<Hash> hashes = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            hashes.add(TransactionTestUtils.getTransactionHash());
+        }
+        Collections.sort(hashes);
+        for (int i = 1; i < hashes.size(); i++) {
+            byte[] previous = hashes.get(i - 1).bytes();
+            byte[] current = hashes.get(i).bytes();
+            int j = 0;
+            while (previous[j] == current[j]) {
+                j++;
+            }
+            assertTrue((previous[j] & 0xFF) < (current[j] & 0xFF));
+        }
+        Hash hash = hashes.get(0);
+        assertEquals(0, hash.compareTo(HashFactory.TRANSACTION.create(hash.bytes(), 0, Hash.SIZE_IN_BYTES)));
+    }
+}
@@ -0,0 +1,234 @@
+package iota.rocksdb.test.pipeline;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.io.FileUtils;
+
+import junit.framework.TestCase;
+
+import iota.rocksdb.test.App;
+import iota.rocksdb.test.RocksDBPersistenceProvider;
+import iota.rocksdb.test.Transaction;
+import iota.rocksdb.crypto.SpongeFactory;
+import iota.rocksdb.test.persist.Hash;
+import iota.rocksdb.test.persist.HashFactory;
+import iota.rocksdb.test.persist.Indexable;
+import iota.rocksdb.test.persist.Persistable;
+import iota.rocksdb.test.service.TransactionHashService;
+import iota.rocksdb.test.util.Converter;
+import iota.rocksdb.test.util.Pair;
+import iota.rocksdb.test.util.TransactionTestUtils;
+
+/**
+ * Unit tests for {@link IngestPipeline}.
+ */
+public class IngestPipelineTest extends TestCase {
+
+    private File directory;
+    private RocksDBPersistenceProvider provider;
+    private final AtomicBoolean failSaves = new AtomicBoolean();
+    private volatile CountDownLatch saveGate = new CountDownLatch(0);
+
+    @Override
+    protected void setUp() throws Exception {
+        directory = Files.createTempDirectory("ingest").toFile();
+        provider = new RocksDBPersistenceProvider(new File(directory, "db").getPath(),
+                new File(directory, "log").getPath(), 1, App.COLUMN_FAMILIES,
+                new AbstractMap.SimpleEntry<>("transaction-metadata", Transaction.class)) {
+            @Override
+            public boolean saveBatch(List<Pair<Indexable, Persistable>> models) throws Exception {
+                saveGate.await();
+                if (failSaves.get()) {
+                    throw new IllegalStateException("Failing on purpose");
+                }
+                return super.saveBatch(models);
+            }
+        };
+        provider.init();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        provider.shutdown();
+        FileUtils.deleteDirectory(directory);
+    }
+
+    private static List<byte[]> transactions(int count) {
+        List<byte[]> transactions = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            byte[] bytes = new byte[Transaction.SIZE];
+            Converter.bytes(TransactionTestUtils.getTransactionTrits(), bytes);
+            transactions.add(bytes);
+        }
+        return transactions;
+    }
+
+    private void ingest(IngestPipelineConfig config, List<byte[]> transactions) throws Exception {
+        try (IngestPipeline pipeline = new IngestPipeline(provider, config)) {
+            for (byte[] transaction : transactions) {
+                pipeline.submit(transaction);
+            }
+        }
+    }
+
+    public void testStoresParsedTransactions() throws Exception {
+        List<byte[]> transactions = transactions(200);
+        IngestPipelineConfig config = new IngestPipelineConfig().setMinWeightMagnitude(0)
+                .setQueueCapacity(8).setBatchSize(16)
+                .setParallelism(IngestStage.HASH, 4).setParallelism(IngestStage.PARSE, 2);
+        ingest(config, transactions);
+
+        try (TransactionHashService hasher = new TransactionHashService(SpongeFactory.Mode.CURLP81, 1)) {
+            for (byte[] bytes : transactions) {
+                Hash hash = hasher.hash(bytes);
+                Transaction stored = (Transaction) provider.get(Transaction.class, hash);
+                assertTrue(stored.exists());
+
+                byte[] trits = new byte[TransactionTestUtils.TRINARY_SIZE];
+                Converter.getTrits(bytes, trits);
+                assertEquals(HashFactory.TRANSACTION.create(trits, TransactionTestUtils.ADDRESS_TRINARY_OFFSET),
+                        stored.address);
+                assertEquals(HashFactory.TRANSACTION.create(trits, TransactionTestUtils.TRUNK_TRANSACTION_TRINARY_OFFSET),
+                        stored.trunk);
+                assertEquals(Converter.longValue(trits, TransactionTestUtils.VALUE_TRINARY_OFFSET,
+                        TransactionTestUtils.VALUE_USABLE_TRINARY_SIZE), stored.value);
+                assertEquals(Converter.longValue(trits, TransactionTestUtils.CURRENT_INDEX_TRINARY_OFFSET,
+                        TransactionTestUtils.CURRENT_INDEX_TRINARY_SIZE), stored.currentIndex);
+            }
+        }
+    }
+
+    public void testRejectsDuplicatesAndLowWeight() throws Exception {
+        List<byte[]> transactions = transactions(50);
+        List<byte[]> submitted = new ArrayList<>(transactions);
+        submitted.addAll(transactions.subList(0, 10));
+
+        IngestPipelineConfig config = new IngestPipelineConfig().setMinWeightMagnitude(0).setQueueCapacity(4);
+        IngestPipeline pipeline = new IngestPipeline(provider, config);
+        for (byte[] transaction : submitted) {
+            pipeline.submit(transaction);
+        }
+        pipeline.close();
+
+        assertEquals(60, pipeline.getMetrics(IngestStage.DEDUPLICATE).getProcessed());
+        assertEquals(10, pipeline.getMetrics(IngestStage.DEDUPLICATE).getRejected());
+        assertEquals(50, pipeline.getMetrics(IngestStage.PERSIST).getProcessed());
+        assertEquals(0, pipeline.getMetrics(IngestStage.PERSIST).getFailed());
+        assertEquals(50, provider.count(Transaction.class));
+
+        int lowWeight = 0;
+        try (TransactionHashService hasher = new TransactionHashService(SpongeFactory.Mode.CURLP81, 1)) {
+            for (byte[] transaction : transactions) {
+                if (hasher.hash(transaction).trailingZeros() < 1) {
+                    lowWeight++;
+                }
+            }
+        }
+
+        // Already stored transactions are rejected by a new pipeline too
+        pipeline = new IngestPipeline(provider, config.setPreserveOrder(false).setMinWeightMagnitude(1));
+        for (byte[] transaction : transactions) {
+            pipeline.submit(transaction);
+        }
+        pipeline.close();
+
+        StageMetrics validate = pipeline.getMetrics(IngestStage.VALIDATE);
+        StageMetrics deduplicate = pipeline.getMetrics(IngestStage.DEDUPLICATE);
+        assertEquals(50, validate.getProcessed());
+        assertEquals(lowWeight, validate.getRejected());
+        assertEquals(50 - lowWeight, deduplicate.getProcessed());
+        assertEquals(50 - lowWeight, deduplicate.getRejected());
+        assertEquals(0, pipeline.getMetrics(IngestStage.PERSIST).getProcessed());
+        assertEquals(50, provider.count(Transaction.class));
+    }
+
+    public void testStoresResubmittedTransactionAfterFailedSave() throws Exception {
+        List<byte[]> transactions = transactions(10);
+        IngestPipelineConfig config = new IngestPipelineConfig().setMinWeightMagnitude(0);
+        IngestPipeline pipeline = new IngestPipeline(provider, config);
+
+        failSaves.set(true);
+        for (byte[] transaction : transactions) {
+            pipeline.submit(transaction);
+        }
+        StageMetrics persist = pipeline.getMetrics(IngestStage.PERSIST);
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (persist.getProcessed() < transactions.size() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(transactions.size(), persist.getFailed());
+
+        failSaves.set(false);
+        for (byte[] transaction : transactions) {
+            pipeline.submit(transaction);
+        }
+        pipeline.close();
+
+        assertEquals(0, pipeline.getMetrics(IngestStage.DEDUPLICATE).getRejected());
+        assertEquals(2 * transactions.size(), persist.getProcessed());
+        try (TransactionHashService hasher = new TransactionHashService(SpongeFactory.Mode.CURLP81, 1)) {
+            for (byte[] bytes : transactions) {
+                assertTrue(provider.get(Transaction.class, hasher.hash(bytes)).exists());
+            }
+        }
+    }
+
+    public void testCloseWhileSubmitting() throws Exception {
+        IngestPipelineConfig config = new IngestPipelineConfig().setMinWeightMagnitude(0).setQueueCapacity(2)
+                .setPreserveOrder(false);
+        IngestPipeline pipeline = new IngestPipeline(provider, config);
+        // Saves wait until the pipeline is full and the submitters wait for room
+        saveGate = new CountDownLatch(1);
+
+        AtomicInteger submitted = new AtomicInteger();
+        List<Thread> submitters = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            List<byte[]> transactions = transactions(100);
+            Thread submitter = new Thread(() -> {
+                try {
+                    for (byte[] transaction : transactions) {
+                        pipeline.submit(transaction);
+                        submitted.incrementAndGet();
+                    }
+                } catch (IllegalStateException | InterruptedException closed) {
+                }
+            });
+            submitter.start();
+            submitters.add(submitter);
+        }
+        for (Thread submitter : submitters) {
+            waitUntilWaiting(submitter);
+        }
+        Thread closer = new Thread(pipeline::close);
+        closer.start();
+        waitUntilWaiting(closer);
+        saveGate.countDown();
+
+        closer.join(10_000);
+        assertFalse(closer.isAlive());
+        for (Thread submitter : submitters) {
+            submitter.join(10_000);
+            assertFalse(submitter.isAlive());
+        }
+
+        // Every accepted transaction went through the whole pipeline
+        assertEquals(submitted.get(), pipeline.getMetrics(IngestStage.HASH).getProcessed());
+        assertEquals(submitted.get(), pipeline.getMetrics(IngestStage.PERSIST).getProcessed());
+        assertEquals(submitted.get(), provider.count(Transaction.class));
+    }
+
+    private static void waitUntilWaiting(Thread thread) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (thread.getState() != Thread.State.WAITING && System.currentTimeMillis() < deadline) {
+            Thread.sleep(1);
+        }
+        assertEquals(Thread.State.WAITING, thread.getState());
+    }
+}
@@ -0,0 +1,54 @@
+package iota.rocksdb.test.service;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.TestCase;
+
+/**
+ * Unit tests for {@link IoExecutor}.
+ */
+public class IoExecutorTest extends TestCase {
+
+    public void testRejectsAboveLimit() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        try (IoExecutor executor = new IoExecutor("test", 1, 2)) {
+            Future<Boolean> first = executor.submit(() -> release.await(10, TimeUnit.SECONDS));
+            Future<Boolean> second = executor.submit(() -> release.await(10, TimeUnit.SECONDS));
+            Future<Boolean> third = executor.submit(() -> true);
+
+            try {
+                third.get();
+                fail("Third task should be rejected");
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof RejectedExecutionException);
+            }
+            assertEquals(1, executor.getRejected());
+
+            release.countDown();
+            assertTrue(first.get(10, TimeUnit.SECONDS));
+            assertTrue(second.get(10, TimeUnit.SECONDS));
+
+            // permits are returned once tasks complete
+            assertTrue(executor.submit(() -> true).get(10, TimeUnit.SECONDS));
+        }
+    }
+
+    public void testFailedTaskCompletesExceptionally() throws Exception {
+        try (IoExecutor executor = new IoExecutor("test", 1, 1)) {
+            try {
+                executor.submit(() -> {
+                    throw new IllegalStateException("boom");
+                }).get(10, TimeUnit.SECONDS);
+                fail("Task should fail");
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof IllegalStateException);
+            }
+            assertEquals(1, executor.getFailed());
+            assertTrue(executor.submit(() -> true).get(10, TimeUnit.SECONDS));
+        }
+    }
+}
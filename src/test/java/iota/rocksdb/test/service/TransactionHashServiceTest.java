@@ -0,0 +1,95 @@
+package iota.rocksdb.test.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+
+import junit.framework.TestCase;
+
+import iota.rocksdb.crypto.SpongeFactory;
+import iota.rocksdb.test.Transaction;
+import iota.rocksdb.test.persist.Hash;
+import iota.rocksdb.test.persist.TransactionHash;
+import iota.rocksdb.test.util.Converter;
+import iota.rocksdb.test.util.TransactionTestUtils;
+
+/**
+ * Unit tests for {@link TransactionHashService}.
+ */
+public class TransactionHashServiceTest extends TestCase {
+
+    private static byte[][] transactions(int count) {
+        byte[][] transactions = new byte[count][];
+        for (int i = 0; i < count; i++) {
+            transactions[i] = new byte[Transaction.SIZE];
+            Converter.bytes(TransactionTestUtils.getTransactionTrits(), transactions[i]);
+        }
+        return transactions;
+    }
+
+    private static Hash expected(SpongeFactory.Mode mode, byte[] transaction) {
+        byte[] trits = new byte[TransactionTestUtils.TRINARY_SIZE];
+        Converter.getTrits(transaction, trits);
+        return TransactionHash.calculate(mode, trits);
+    }
+
+    public void testHashesMatchCalculate() {
+        // Large enough to be split over several tasks
+        byte[][] transactions = transactions(200);
+        for (SpongeFactory.Mode mode : new SpongeFactory.Mode[] {SpongeFactory.Mode.CURLP81, SpongeFactory.Mode.KERL}) {
+            try (TransactionHashService service = new TransactionHashService(mode, 4)) {
+                Hash[] hashes = service.hash(transactions);
+                List<Hash> listed = service.hash(Arrays.asList(transactions));
+
+                assertEquals(transactions.length, hashes.length);
+                assertEquals(transactions.length, listed.size());
+                for (int i = 0; i < transactions.length; i++) {
+                    Hash expected = expected(mode, transactions[i]);
+                    assertEquals(expected, hashes[i]);
+                    assertEquals(expected, listed.get(i));
+                    assertEquals(expected, service.hash(transactions[i]));
+                }
+            }
+        }
+    }
+
+    public void testHashesEmptyBatch() {
+        try (TransactionHashService service = new TransactionHashService(SpongeFactory.Mode.CURLP81, 1)) {
+            assertEquals(0, service.hash(new byte[0][]).length);
+            assertTrue(service.hash(new ArrayList<byte[]>()).isEmpty());
+        }
+    }
+
+    public void testRejectsBatchCurl() {
+        try {
+            new TransactionHashService(SpongeFactory.Mode.BCURLT, 1).close();
+            fail("Expected a NoSuchElementException");
+        } catch (NoSuchElementException expected) {
+        }
+    }
+
+    public void testCloseShutsDownOwnPoolOnly() {
+        byte[][] transactions = transactions(20);
+
+        TransactionHashService owning = new TransactionHashService(SpongeFactory.Mode.CURLP81, 2);
+        owning.close();
+        try {
+            owning.hash(transactions);
+            fail("Expected a RejectedExecutionException");
+        } catch (RejectedExecutionException expected) {
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            TransactionHashService shared = new TransactionHashService(SpongeFactory.Mode.CURLP81, pool);
+            shared.close();
+            assertFalse(pool.isShutdown());
+            assertEquals(expected(SpongeFactory.Mode.CURLP81, transactions[0]), shared.hash(transactions)[0]);
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package iota.rocksdb.test.throttle;
+
+import junit.framework.TestCase;
+
+/**
+ * Unit tests for {@link WriteStallController}.
+ */
+public class WriteStallControllerTest extends TestCase {
+
+    private static final WriteStallController.Limits LIMITS = new WriteStallController.Limits(1000, 20, 3);
+
+    private WriteStallController controller(double startPressure, long maxDelayMicros) {
+        // Never polls, the tests set the state themselves
+        return new WriteStallController(() -> new StallState(0, 0, 0, false), LIMITS, startPressure,
+                maxDelayMicros);
+    }
+
+    public void testDelayGrowsWithPressure() {
+        try (WriteStallController controller = controller(0.5, 1000)) {
+            controller.update(new StallState(400, 5, 0, false));
+            assertEquals(0.4, controller.getPressure(), 1e-9);
+            assertEquals(0, controller.getDelayMicros());
+
+            // L0 files are closest to their limit
+            controller.update(new StallState(100, 15, 0, false));
+            assertEquals(0.75, controller.getPressure(), 1e-9);
+            assertEquals(500, controller.getDelayMicros());
+
+            // two immutable memtables out of three buffers
+            controller.update(new StallState(0, 0, 2, false));
+            assertEquals(1.0, controller.getPressure(), 1e-9);
+            assertEquals(1000, controller.getDelayMicros());
+
+            controller.update(new StallState(5000, 0, 0, false));
+            assertEquals(1000, controller.getDelayMicros());
+
+            controller.update(new StallState(0, 0, 0, true));
+            assertEquals(1000, controller.getDelayMicros());
+        }
+    }
+
+    public void testThrottleWaits() {
+        try (WriteStallController controller = controller(0, 2000)) {
+            controller.throttle(10);
+            assertEquals(0, controller.getThrottledWrites());
+
+            controller.update(new StallState(0, 20, 0, false));
+            long start = System.nanoTime();
+            controller.throttle(10);
+            assertTrue(System.nanoTime() - start >= 20_000_000L);
+            assertEquals(10, controller.getThrottledWrites());
+            assertEquals(20, controller.getTotalDelayMillis());
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package iota.rocksdb.test.util;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import iota.rocksdb.test.Transaction;
+import iota.rocksdb.test.persist.Hash;
+
+/**
+ * Compares the bytes &lt;-&gt; trits kernels of {@link Converter} with the per-byte conversion they replaced,
+ * on a full transaction, and the direct bytes to trytes codec with the conversion through trits on a hash.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ConverterBenchmark {
+
+    private byte[] trits;
+    private byte[] bytes;
+    private byte[] tritsOut;
+    private byte[] bytesOut;
+    private byte[] hashBytes;
+    private byte[] hashTrits;
+    private byte[] asciiOut;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(1);
+        trits = new byte[TransactionTestUtils.TRINARY_SIZE];
+        for (int i = 0; i < trits.length; i++) {
+            trits[i] = (byte) (random.nextInt(3) - 1);
+        }
+        bytes = new byte[Transaction.SIZE];
+        Converter.bytes(trits, bytes);
+        tritsOut = new byte[trits.length];
+        bytesOut = new byte[bytes.length];
+        hashBytes = Arrays.copyOf(bytes, Hash.SIZE_IN_BYTES);
+        hashTrits = new byte[Hash.SIZE_IN_TRITS];
+        asciiOut = new byte[Hash.SIZE_IN_TRYTES];
+    }
+
+    @Benchmark
+    public byte[] hashTrytesFromBytes() {
+        Converter.trytesFromBytes(hashBytes, 0, asciiOut, 0, Hash.SIZE_IN_TRYTES);
+        return asciiOut;
+    }
+
+    @Benchmark
+    public String hashTrytesViaTrits() {
+        Converter.getTrits(hashBytes, hashTrits);
+        return Converter.trytes(hashTrits);
+    }
+
+    @Benchmark
+    public byte[] getTrits() {
+        Converter.getTrits(bytes, tritsOut);
+        return tritsOut;
+    }
+
+    @Benchmark
+    public byte[] getTritsLegacy() {
+        legacyGetTrits(bytes, tritsOut);
+        return tritsOut;
+    }
+
+    @Benchmark
+    public byte[] bytes() {
+        Converter.bytes(trits, 0, bytesOut, 0, trits.length);
+        return bytesOut;
+    }
+
+    @Benchmark
+    public byte[] bytesLegacy() {
+        legacyBytes(trits, 0, bytesOut, 0, trits.length);
+        return bytesOut;
+    }
+
+    /**
+     * The conversion used before the bulk kernels, a lookup row copy per byte
+     */
+    private static void legacyGetTrits(final byte[] bytes, final byte[] trits) {
+        int offset = 0;
+        for (int i = 0; i < bytes.length && offset < trits.length; i++) {
+            System.arraycopy(Converter.BYTE_TO_TRITS_MAPPINGS[bytes[i] < 0 ? (bytes[i] + Converter.BYTE_TO_TRITS_MAPPINGS.length) : bytes[i]],
+                    0, trits, offset, trits.length - offset < Converter.NUMBER_OF_TRITS_IN_A_BYTE ? (trits.length - offset) : Converter.NUMBER_OF_TRITS_IN_A_BYTE);
+            offset += Converter.NUMBER_OF_TRITS_IN_A_BYTE;
+        }
+        while (offset < trits.length) {
+            trits[offset++] = 0;
+        }
+    }
+
+    /**
+     * The conversion used before the bulk kernels, a multiply loop per byte
+     */
+    private static void legacyBytes(final byte[] trits, final int srcPos, byte[] dest, int destPos, final int tritsLength) {
+        final int expectedLength = (tritsLength + Converter.NUMBER_OF_TRITS_IN_A_BYTE - 1) / Converter.NUMBER_OF_TRITS_IN_A_BYTE;
+        for (int i = 0; i < expectedLength; i++) {
+            int value = 0;
+            for (int j = (tritsLength - i * Converter.NUMBER_OF_TRITS_IN_A_BYTE) < 5 ? (tritsLength - i * Converter.NUMBER_OF_TRITS_IN_A_BYTE) : Converter.NUMBER_OF_TRITS_IN_A_BYTE; j-- > 0; ) {
+                value = value * Converter.RADIX + trits[srcPos + i * Converter.NUMBER_OF_TRITS_IN_A_BYTE + j];
+            }
+            dest[destPos + i] = (byte)value;
+        }
+    }
+}
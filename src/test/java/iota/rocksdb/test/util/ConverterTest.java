@@ -0,0 +1,101 @@
+package iota.rocksdb.test.util;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+import iota.rocksdb.test.persist.Hash;
+import iota.rocksdb.test.persist.HashFactory;
+
+/**
+ * Unit tests for the conversions of {@link Converter}.
+ */
+public class ConverterTest extends TestCase {
+
+    private static final Random RANDOM = new Random(3);
+
+    private static byte[] randomTrits(int length) {
+        byte[] trits = new byte[length];
+        for (int i = 0; i < length; i++) {
+            trits[i] = (byte) (RANDOM.nextInt(3) - 1);
+        }
+        return trits;
+    }
+
+    public void testBytesMatchBalancedValue() {
+        byte[] trits = randomTrits(TransactionTestUtils.TRINARY_SIZE);
+        byte[] bytes = Converter.allocateBytesForTrits(trits.length);
+        Converter.bytes(trits, bytes);
+
+        for (int i = 0; i < bytes.length; i++) {
+            int size = Math.min(Converter.NUMBER_OF_TRITS_IN_A_BYTE, trits.length - i * Converter.NUMBER_OF_TRITS_IN_A_BYTE);
+            assertEquals(Converter.longValue(trits, i * Converter.NUMBER_OF_TRITS_IN_A_BYTE, size), bytes[i]);
+        }
+    }
+
+    public void testTritsRoundTrip() {
+        for (int length : new int[] {TransactionTestUtils.TRINARY_SIZE, 243, 7, 1}) {
+            byte[] trits = randomTrits(length);
+            byte[] bytes = Converter.allocateBytesForTrits(length);
+            Converter.bytes(trits, bytes);
+
+            byte[] result = new byte[length];
+            Converter.getTrits(bytes, result);
+            assertTrue(Arrays.equals(trits, result));
+        }
+    }
+
+    public void testGetTritsPadsWithZeros() {
+        byte[] result = new byte[12];
+        Arrays.fill(result, (byte) 1);
+        Converter.getTrits(new byte[] {121}, result);
+        assertTrue(Arrays.equals(new byte[] {1, 1, 1, 1, 1, 0, 0, 0, 0, 0, 0, 0}, result));
+    }
+
+    public void testTrytesFromBytesMatchTrits() {
+        for (int tryteCount : new int[] {81, 80, 7, 1}) {
+            byte[] trits = randomTrits(tryteCount * Converter.NUMBER_OF_TRITS_IN_A_TRYTE);
+            byte[] bytes = Converter.allocateBytesForTrits(trits.length);
+            Converter.bytes(trits, bytes);
+
+            String trytes = Converter.trytes(trits);
+            assertEquals(trytes, Converter.trytesFromBytes(bytes, 0, tryteCount));
+
+            ByteBuffer buffer = ByteBuffer.allocate(tryteCount + 1);
+            buffer.put((byte) ' ');
+            Converter.trytesFromBytes(bytes, 0, buffer, tryteCount);
+            assertEquals(" " + trytes, new String(buffer.array(), StandardCharsets.US_ASCII));
+
+            byte[] result = new byte[bytes.length];
+            Converter.bytesFromTrytes(trytes, result, 0);
+            assertTrue(Arrays.equals(bytes, result));
+        }
+    }
+
+    public void testTrytesFromBytesWrapsOutOfRangeBytes() {
+        byte[] bytes = new byte[Hash.SIZE_IN_BYTES];
+        RANDOM.nextBytes(bytes);
+        bytes[0] = Byte.MAX_VALUE;
+        bytes[1] = Byte.MIN_VALUE;
+        bytes[2] = 122;
+        bytes[3] = -122;
+        bytes[bytes.length - 1] = Byte.MIN_VALUE;
+
+        byte[] trits = new byte[Hash.SIZE_IN_TRITS];
+        Converter.getTrits(bytes, trits);
+        String trytes = Converter.trytes(trits);
+        assertEquals(trytes, Converter.trytesFromBytes(bytes, 0, Hash.SIZE_IN_TRYTES));
+        assertEquals(trytes, HashFactory.TRANSACTION.create(bytes, 0, Hash.SIZE_IN_BYTES).toString());
+    }
+
+    public void testBytesFromTrytesRejectsIllegalCharacters() {
+        try {
+            Converter.bytesFromTrytes("ABC1", new byte[3], 0);
+            fail("Expected an IllegalArgumentException");
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+}
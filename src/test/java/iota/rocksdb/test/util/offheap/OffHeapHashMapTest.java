@@ -0,0 +1,72 @@
+package iota.rocksdb.test.util.offheap;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import iota.rocksdb.test.persist.Hash;
+import iota.rocksdb.test.persist.HashFactory;
+import iota.rocksdb.test.util.TransactionTestUtils;
+
+/**
+ * Unit tests for {@link OffHeapHashMap} and {@link OffHeapHashSet}.
+ */
+public class OffHeapHashMapTest extends TestCase {
+
+    private static List<Hash> hashes(int count) {
+        List<Hash> hashes = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            hashes.add(TransactionTestUtils.getTransactionHash());
+        }
+        return hashes;
+    }
+
+    public void testPutGetRemoveWhileGrowing() {
+        List<Hash> hashes = hashes(5000);
+        try (OffHeapHashMap map = new OffHeapHashMap(10, 4, null)) {
+            for (int i = 0; i < hashes.size(); i++) {
+                assertTrue(map.put(hashes.get(i), i));
+            }
+            assertEquals(hashes.size(), map.size());
+            for (int i = 0; i < hashes.size(); i++) {
+                // a copy of the key finds the same entry
+                Hash copy = HashFactory.TRANSACTION.create(hashes.get(i).bytes(), 0, Hash.SIZE_IN_BYTES);
+                assertEquals(i, map.get(copy, -1));
+            }
+
+            for (int i = 0; i < hashes.size(); i += 2) {
+                assertTrue(map.remove(hashes.get(i)));
+            }
+            assertEquals(hashes.size() / 2, map.size());
+            assertEquals(-1, map.get(hashes.get(0), -1));
+            assertEquals(1, map.get(hashes.get(1), -1));
+
+            map.add(hashes.get(1), 10);
+            assertEquals(11, map.get(hashes.get(1), -1));
+            assertFalse(map.putIfAbsent(hashes.get(1), 0));
+            assertEquals(11, map.get(hashes.get(1), -1));
+        }
+    }
+
+    public void testSpilledSet() throws IOException {
+        Path directory = Files.createTempDirectory("offheap");
+        List<Hash> hashes = hashes(2000);
+        try (OffHeapHashSet set = new OffHeapHashSet(100, 2, directory)) {
+            for (Hash hash : hashes) {
+                assertTrue(set.add(hash));
+                assertFalse(set.add(hash));
+            }
+            assertEquals(hashes.size(), set.size());
+            assertTrue(set.contains(hashes.get(123)));
+            assertFalse(set.contains(Hash.NULL_HASH));
+        }
+        try (java.util.stream.Stream<Path> files = Files.list(directory)) {
+            assertEquals(0, files.count());
+        }
+        Files.delete(directory);
+    }
+}
@@ -0,0 +1,51 @@
+package iota.rocksdb.test.workload;
+
+import junit.framework.TestCase;
+
+/**
+ * Unit tests for {@link LatencyHistogram}.
+ */
+public class LatencyHistogramTest extends TestCase {
+
+    public void testBucketsCoverTheirLatencies() {
+        long[] latencies = {0, 1, 63, 64, 65, 127, 128, 1000, 123_456, 1L << 40, Long.MAX_VALUE};
+        for (long latency : latencies) {
+            int bucket = LatencyHistogram.bucketOf(latency);
+            assertTrue(String.valueOf(latency), LatencyHistogram.highestOf(bucket) >= latency);
+            if (bucket > 0) {
+                assertTrue(String.valueOf(latency), LatencyHistogram.highestOf(bucket - 1) < latency);
+            }
+        }
+    }
+
+    public void testPercentilesAreAccurate() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int micros = 1; micros <= 100_000; micros++) {
+            histogram.record(micros);
+        }
+        assertEquals(100_000, histogram.getCount());
+        assertEquals(100_000, histogram.getMax());
+        for (double percentile : new double[] {50, 95, 99, 99.9}) {
+            double exact = percentile * 1000;
+            double reported = histogram.getPercentile(percentile);
+            assertTrue(percentile + ": " + reported, reported >= exact && reported <= exact * 1.04);
+        }
+        assertEquals(100_000, histogram.getPercentile(100));
+    }
+
+    public void testSnapshotResets() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(10);
+        histogram.record(5000);
+
+        LatencyHistogram snapshot = histogram.snapshotAndReset();
+        assertEquals(2, snapshot.getCount());
+        assertEquals(5000, snapshot.getMax());
+        assertEquals(10, snapshot.getPercentile(50));
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getPercentile(99));
+
+        histogram.record(7);
+        assertEquals(7, histogram.getMax());
+    }
+}
@@ -0,0 +1,86 @@
+package iota.rocksdb.test.workload;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Properties;
+
+import org.apache.commons.io.FileUtils;
+
+import junit.framework.TestCase;
+
+/**
+ * Unit tests for {@link WorkloadDriver} and {@link WorkloadSpec}.
+ */
+public class WorkloadDriverTest extends TestCase {
+
+    private File directory;
+
+    @Override
+    protected void setUp() throws Exception {
+        directory = Files.createTempDirectory("workload").toFile();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        FileUtils.deleteDirectory(directory);
+    }
+
+    private Properties workload() {
+        Properties properties = new Properties();
+        properties.setProperty("db.path", new File(directory, "db").getPath());
+        properties.setProperty("log.path", new File(directory, "log").getPath());
+        properties.setProperty("threads", "4");
+        properties.setProperty("duration", "1s");
+        properties.setProperty("report.interval", "300ms");
+        properties.setProperty("preload", "500");
+        properties.setProperty("scan.length", "10");
+        return properties;
+    }
+
+    public void testClosedLoopRunsEveryOperation() throws Exception {
+        Properties properties = workload();
+        properties.setProperty("keys.distribution", "hotset");
+        WorkloadResult result = new WorkloadDriver(new WorkloadSpec(properties)).run();
+
+        assertTrue(result.elapsedMillis >= 1000);
+        for (Operation operation : Operation.values()) {
+            LatencyHistogram latencies = result.latencies.get(operation);
+            assertTrue(operation.name(), latencies.getCount() > 0);
+            assertEquals(operation.name(), Long.valueOf(0), result.errors.get(operation));
+            assertTrue(latencies.getPercentile(50) <= latencies.getPercentile(99));
+            assertTrue(latencies.getPercentile(99) <= latencies.getMax());
+        }
+    }
+
+    public void testTargetRateLimitsThroughput() throws Exception {
+        Properties properties = workload();
+        properties.setProperty("rate", "200");
+        properties.setProperty("mix.scan", "0");
+        WorkloadResult result = new WorkloadDriver(new WorkloadSpec(properties)).run();
+
+        assertFalse(result.latencies.containsKey(Operation.SCAN));
+        long completed = 0;
+        for (LatencyHistogram latencies : result.latencies.values()) {
+            completed += latencies.getCount();
+        }
+        // 200 operations per second during one second
+        assertTrue(String.valueOf(completed), completed > 100 && completed <= 210);
+    }
+
+    public void testSpecValidation() {
+        assertEquals(90_000, WorkloadSpec.parseDuration("90"));
+        assertEquals(250, WorkloadSpec.parseDuration("250ms"));
+        assertEquals(7_200_000, WorkloadSpec.parseDuration("2h"));
+
+        Properties properties = workload();
+        for (Operation operation : Operation.values()) {
+            properties.setProperty(operation.getProperty(), "0");
+        }
+        try {
+            new WorkloadSpec(properties);
+            fail("A mix without operations must be rejected");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+}